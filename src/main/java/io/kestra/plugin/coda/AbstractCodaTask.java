@@ -0,0 +1,173 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.Task;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.coda.client.CircuitBreakerConfig;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaConnectionOptions;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.CodaPager;
+import io.kestra.plugin.coda.client.HedgingConfig;
+import io.kestra.plugin.coda.client.PayloadCaptureConfig;
+import io.kestra.plugin.coda.client.RateBudget;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.models.CodaColumn;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for all Coda tasks, whether they target one document or many.
+ * Provides common functionality for authentication and connection management.
+ */
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+public abstract class AbstractCodaTask extends Task {
+    @Schema(
+        title = "Coda API Token",
+        description = "Your Coda API token. Get it from https://coda.io/account. " +
+            "Use {{ secret('CODA_API_TOKEN') }} to reference a secret. Required unless `apiTokens` is set."
+    )
+    protected Property<String> apiToken;
+
+    @Schema(
+        title = "Coda API tokens",
+        description = "Tokens of several accounts to spread the calls over. The API rate limits each token separately, " +
+            "so the throughput of the task grows with the number of tokens. Each call uses the token with the most " +
+            "budget left; a rate-limited token rests for the Retry-After delay while the others serve, and a rejected " +
+            "token is taken out of rotation. Used together with `apiToken` if both are set."
+    )
+    protected Property<List<String>> apiTokens;
+
+    @Schema(
+        title = "API base URL",
+        description = "The base URL of the Coda API. Only change it to go through a proxy or to target a local API simulator."
+    )
+    @Builder.Default
+    protected Property<String> baseUrl = Property.ofValue(CodaConnection.DEFAULT_BASE_URL);
+
+    @Schema(
+        title = "Circuit breaker",
+        description = "Thresholds of the circuit breaker guarding the calls to the document. When too many recent calls " +
+            "failed or were slow, the circuit opens and calls fail fast instead of waiting for timeouts. " +
+            "The circuit is shared by all the tasks of the worker using the same token and document, with the " +
+            "thresholds of the first task to call the document: other thresholds only apply once no call was made " +
+            "to the document for 15 minutes."
+    )
+    protected Property<CircuitBreakerConfig> circuitBreaker;
+
+    @Schema(
+        title = "Maximum concurrent requests per document",
+        description = "The maximum number of in-flight calls to the document with this token, across all the tasks of the worker. " +
+            "Calls over the limit wait for a free slot, so a degraded document cannot hold every worker thread. " +
+            "The limit of the first task to call the document applies to all of them, until no call was made to the " +
+            "document for 15 minutes."
+    )
+    @Builder.Default
+    protected Property<Integer> maxConcurrentRequests = Property.ofValue(8);
+
+    @Schema(
+        title = "Request hedging",
+        description = "When set, a read that has not answered within a percentile of the recent read latencies of the " +
+            "document is sent a second time, and the first response wins. This cuts tail latency for a small amount " +
+            "of extra load. Only reads are hedged; writes are never sent twice."
+    )
+    protected Property<HedgingConfig> hedging;
+
+    @Schema(
+        title = "Payload capture",
+        description = "Sampling and size cap of the request and response bodies attached to the trace spans and debug " +
+            "logs of the API calls. Bodies are never captured in full, so large listings cannot flood the logs."
+    )
+    protected Property<PayloadCaptureConfig> payloadCapture;
+
+    @Schema(
+        title = "Maximum requests per second",
+        description = "When set, the calls of the task are spread to stay under this rate, instead of being rejected " +
+            "by the API and retried. Useful when many concurrent calls share the rate limit of one token."
+    )
+    protected Property<Double> maxRequestsPerSecond;
+
+    /**
+     * Creates a new Coda API connection using the provided credentials.
+     *
+     * @param runContext The Kestra run context
+     * @return A configured CodaConnection instance
+     * @throws Exception if the connection cannot be created
+     */
+    protected CodaConnection createConnection(RunContext runContext) throws Exception {
+        // the task timeout, when set, becomes the deadline of every API call so no call outlives the task
+        Instant deadline = runContext.render(getTimeout()).as(Duration.class)
+            .map(timeout -> Instant.now().plus(timeout))
+            .orElse(null);
+
+        return createConnection(runContext, deadline, runContext.logger());
+    }
+
+    /**
+     * Creates a new Coda API connection with an explicit deadline and logger, for connections used outside the
+     * execution of the task, such as background refreshes.
+     *
+     * @param runContext The Kestra run context
+     * @param deadline The deadline of every API call, or null for none
+     * @param logger The logger of the connection
+     * @return A configured CodaConnection instance
+     * @throws Exception if the connection cannot be created
+     */
+    protected CodaConnection createConnection(RunContext runContext, Instant deadline, Logger logger) throws Exception {
+        List<String> rApiTokens = new ArrayList<>();
+        runContext.render(apiToken).as(String.class).ifPresent(rApiTokens::add);
+        rApiTokens.addAll(runContext.render(apiTokens).asList(String.class));
+        if (rApiTokens.isEmpty()) {
+            throw new IllegalArgumentException("One of the 'apiToken' or 'apiTokens' properties is required");
+        }
+        String rBaseUrl = runContext.render(baseUrl).as(String.class).orElse(CodaConnection.DEFAULT_BASE_URL);
+
+        CodaConnectionOptions options = CodaConnectionOptions.builder()
+            .circuitBreaker(runContext.render(circuitBreaker).as(CircuitBreakerConfig.class).orElse(CircuitBreakerConfig.builder().build()))
+            .maxConcurrentRequestsPerDoc(runContext.render(maxConcurrentRequests).as(Integer.class).orElseThrow())
+            .hedging(runContext.render(hedging).as(HedgingConfig.class).orElse(null))
+            .payloadCapture(runContext.render(payloadCapture).as(PayloadCaptureConfig.class).orElse(PayloadCaptureConfig.builder().build()))
+            .deadline(deadline)
+            .rateBudget(runContext.render(maxRequestsPerSecond).as(Double.class).map(RateBudget::new).orElse(null))
+            .build();
+
+        logger.debug("Creating Coda API connection to {} with {} token(s)", rBaseUrl, rApiTokens.size());
+        return new CodaConnection(rApiTokens, rBaseUrl, options, logger);
+    }
+
+    /**
+     * Lists all the columns of a table, following pagination.
+     *
+     * @param connection The Coda API connection
+     * @param docId The rendered document ID
+     * @param tableId The rendered table ID or name
+     * @return The columns of the table, in display order
+     * @throws CodaException if the columns cannot be listed
+     */
+    protected List<CodaColumn> listColumns(CodaConnection connection, String docId, String tableId) throws CodaException {
+        CodaPager<CodaColumn> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.columns(docId, tableId),
+            new TypeReference<PagedResponse<CodaColumn>>() {}
+        );
+
+        List<CodaColumn> columns = new ArrayList<>();
+        while (pager.hasNext()) {
+            columns.addAll(pager.next());
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,289 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.CodaJson;
+import io.kestra.plugin.coda.client.CodaPager;
+import io.kestra.plugin.coda.formats.RowSchema;
+import io.kestra.plugin.coda.formats.RowSnapshot;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Capture the rows inserted, updated and deleted in a Coda table since the previous run.",
+    description = "The row listing tells neither which rows were deleted nor, for formula columns, which values changed. " +
+        "This task keeps a snapshot of the ID and a hash of the values of every row in the state store of the flow, " +
+        "about 16 bytes per row plus the row ID. Each run lists the table, compares every row to the snapshot and " +
+        "writes an `INSERT`, `UPDATE` or `DELETE` event per changed row to an ION file, then replaces the snapshot. " +
+        "The snapshot is only replaced when the run succeeds, so a failed run is captured again by the next one. " +
+        "A row listed twice, as can happen when rows move while the table is paged, is reported once."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Every 15 minutes, capture the changes of the Orders table.",
+            full = true,
+            code = """
+                id: coda_capture_changes
+                namespace: company.team
+
+                tasks:
+                  - id: changes
+                    type: io.kestra.plugin.coda.CaptureChanges
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    tableId: "Orders"
+
+                triggers:
+                  - id: schedule
+                    type: io.kestra.plugin.core.trigger.Schedule
+                    cron: "*/15 * * * *"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "inserted", type = Counter.TYPE, description = "Number of rows inserted since the previous run."),
+        @Metric(name = "updated", type = Counter.TYPE, description = "Number of rows whose values changed since the previous run."),
+        @Metric(name = "deleted", type = Counter.TYPE, description = "Number of rows deleted since the previous run."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows listed.")
+    }
+)
+public class CaptureChanges extends CodaTask implements RunnableTask<CaptureChanges.Output> {
+    public static final String OPERATION_FIELD = "_op";
+
+    private static final String STATE_NAME = "coda-capture-changes";
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+    // map entries are sorted so that the hash does not depend on the order of the columns in the response
+    private static final ObjectWriter CANONICAL_WRITER = CodaJson.mapper().writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    @Schema(
+        title = "Table ID",
+        description = "The ID or name of the table or view to capture the changes of."
+    )
+    @NotNull
+    private Property<String> tableId;
+
+    @Schema(
+        title = "Page size",
+        description = "The number of rows fetched per API request, up to 500."
+    )
+    @Builder.Default
+    private Property<Integer> pageSize = Property.ofValue(500);
+
+    @Schema(
+        title = "Query",
+        description = "Only capture the rows matching this query, e.g. `Status:\"Open\"`. A row that stops matching " +
+            "the query is reported as deleted."
+    )
+    private Property<String> query;
+
+    @Schema(
+        title = "Snapshot name",
+        description = "The name of the snapshot, unique within the flow. Defaults to the document and table IDs; set it to " +
+            "capture the same table with different queries, or to start over."
+    )
+    private Property<String> snapshotName;
+
+    @Schema(
+        title = "Emit existing rows",
+        description = "Whether the first run, which has no snapshot to compare to, reports every row as inserted. " +
+            "By default it only takes the snapshot."
+    )
+    @Builder.Default
+    private Property<Boolean> emitExistingRows = Property.ofValue(false);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        String rTableId = runContext.render(tableId).as(String.class).orElseThrow();
+        String rSnapshotName = runContext.render(snapshotName).as(String.class).orElse(rDocId + "-" + rTableId);
+        boolean rEmitExistingRows = runContext.render(emitExistingRows).as(Boolean.class).orElseThrow();
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("limit", runContext.render(pageSize).as(Integer.class).orElseThrow());
+        parameters.put("query", runContext.render(query).as(String.class).orElse(null));
+
+        CodaConnection connection = createConnection(runContext);
+        RowSchema schema = RowSchema.of(listColumns(connection, rDocId, rTableId));
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(rDocId, rTableId), parameters),
+            ROWS_PAGE
+        );
+
+        Path eventsFile = runContext.workingDir().createTempFile(".ion");
+        Path previousFile = runContext.workingDir().createTempFile(".snapshot");
+        Path nextFile = runContext.workingDir().createTempFile(".snapshot");
+        boolean firstRun = !loadSnapshot(runContext, rSnapshotName, previousFile);
+        long[] counts = new long[4];
+
+        try (RowSnapshot previous = firstRun ? RowSnapshot.empty() : RowSnapshot.open(previousFile);
+             OutputStream events = new BufferedOutputStream(Files.newOutputStream(eventsFile), FileSerde.BUFFER_SIZE)) {
+            BitSet seen = new BitSet(previous.size());
+            // the new rows already reported, only those need tracking since the rows of the snapshot are in seen
+            RowSnapshot.IdHashSet inserted = new RowSnapshot.IdHashSet();
+            RowSnapshot.Builder next = new RowSnapshot.Builder();
+
+            while (pager.hasNext()) {
+                for (CodaRow row : pager.next()) {
+                    long idHash = RowSnapshot.hash(row.getId());
+                    long valuesHash = RowSnapshot.hash(CANONICAL_WRITER.writeValueAsBytes(row.getValues()));
+                    next.add(row.getId(), idHash, valuesHash);
+                    counts[3]++;
+
+                    int index = previous.find(idHash);
+                    if (index < 0) {
+                        if ((!firstRun || rEmitExistingRows) && inserted.add(idHash)) {
+                            write(events, Operation.INSERT, schema.toRecord(row));
+                            counts[0]++;
+                        }
+                    } else if (!seen.get(index)) {
+                        seen.set(index);
+                        if (previous.valuesHash(index) != valuesHash) {
+                            write(events, Operation.UPDATE, schema.toRecord(row));
+                            counts[1]++;
+                        }
+                    }
+                }
+            }
+
+            try {
+                previous.forEachMissing(seen, rowId -> {
+                    try {
+                        write(events, Operation.DELETE, Map.of(RowSchema.ID_FIELD, rowId));
+                        counts[2]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            next.write(nextFile);
+        }
+
+        logger.info(
+            "Captured {} inserted, {} updated and {} deleted rows in table {} out of {} rows{}",
+            counts[0], counts[1], counts[2], rTableId, counts[3], firstRun ? ", first snapshot taken" : ""
+        );
+
+        runContext.metric(Counter.of("inserted", counts[0]));
+        runContext.metric(Counter.of("updated", counts[1]));
+        runContext.metric(Counter.of("deleted", counts[2]));
+        runContext.metric(Counter.of("records", counts[3]));
+
+        URI uri = runContext.storage().putFile(eventsFile.toFile());
+        // replaced last, so that the changes of a failed run are captured again by the next one; the builder is out of
+        // scope by now, so the bytes of the snapshot take the place of its arrays in memory rather than adding to them
+        runContext.stateStore().putState(STATE_NAME, rSnapshotName, null, Files.readAllBytes(nextFile));
+
+        return Output.builder()
+            .uri(uri)
+            .inserted(counts[0])
+            .updated(counts[1])
+            .deleted(counts[2])
+            .rows(counts[3])
+            .firstRun(firstRun)
+            .build();
+    }
+
+    /**
+     * Streams the snapshot of the previous run from the state store to a local file, so that it can be mapped.
+     *
+     * @return Whether there was a snapshot
+     */
+    private static boolean loadSnapshot(RunContext runContext, String name, Path file) throws Exception {
+        try (InputStream input = runContext.stateStore().getState(STATE_NAME, name, null)) {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (FileNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static void write(OutputStream events, Operation operation, Map<String, Object> record) throws IOException {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put(OPERATION_FIELD, operation.name());
+        event.putAll(record);
+        FileSerde.write(events, event);
+    }
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the change events",
+            description = "One record per changed row: the `_op` of the change followed by the row, or only its `_id` for deleted rows."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "Number of rows inserted"
+        )
+        private final Long inserted;
+
+        @Schema(
+            title = "Number of rows updated"
+        )
+        private final Long updated;
+
+        @Schema(
+            title = "Number of rows deleted"
+        )
+        private final Long deleted;
+
+        @Schema(
+            title = "Number of rows in the table"
+        )
+        private final Long rows;
+
+        @Schema(
+            title = "Whether there was no snapshot to compare to"
+        )
+        private final Boolean firstRun;
+    }
+}
@@ -1,34 +1,21 @@
 package io.kestra.plugin.coda;
 
 import io.kestra.core.models.property.Property;
-import io.kestra.core.models.tasks.Task;
 import io.kestra.core.runners.RunContext;
-import io.kestra.plugin.coda.client.CodaConnection;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
-import org.slf4j.Logger;
-
-import jakarta.validation.constraints.NotNull;
 
 /**
- * Base class for all Coda tasks.
- * Provides common functionality for authentication and connection management.
+ * Base class for the Coda tasks working on a single document.
  */
 @SuperBuilder
 @ToString
 @EqualsAndHashCode
 @Getter
 @NoArgsConstructor
-public abstract class CodaTask extends Task {
-    @Schema(
-        title = "Coda API Token",
-        description = "Your Coda API token. Get it from https://coda.io/account. " +
-            "Use {{ secret('CODA_API_TOKEN') }} to reference a secret."
-    )
-    @NotNull
-    protected Property<String> apiToken;
-
+public abstract class CodaTask extends AbstractCodaTask {
     @Schema(
         title = "Document ID",
         description = "The ID of the Coda document. " +
@@ -37,21 +24,6 @@ public abstract class CodaTask extends Task {
     @NotNull
     protected Property<String> docId;
 
-    /**
-     * Creates a new Coda API connection using the provided credentials.
-     *
-     * @param runContext The Kestra run context
-     * @return A configured CodaConnection instance
-     * @throws Exception if the connection cannot be created
-     */
-    protected CodaConnection createConnection(RunContext runContext) throws Exception {
-        Logger logger = runContext.logger();
-        String renderedApiToken = runContext.render(apiToken).as(String.class).orElseThrow();
-
-        logger.debug("Creating Coda API connection");
-        return new CodaConnection(renderedApiToken, logger);
-    }
-
     /**
      * Renders the document ID from the property.
      *
@@ -60,6 +32,7 @@ public abstract class CodaTask extends Task {
      * @throws Exception if the document ID cannot be rendered
      */
     protected String getDocId(RunContext runContext) throws Exception {
-        return runContext.render(docId).as(String.class).orElseThrow();
+        return runContext.render(docId).as(String.class)
+            .orElseThrow(() -> new IllegalArgumentException("The 'docId' property is required"));
     }
 }
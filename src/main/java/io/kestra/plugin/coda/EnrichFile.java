@@ -0,0 +1,296 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.CodaPager;
+import io.kestra.plugin.coda.formats.InputFormat;
+import io.kestra.plugin.coda.formats.RecordReader;
+import io.kestra.plugin.coda.formats.RowKeys;
+import io.kestra.plugin.coda.formats.RowSchema;
+import io.kestra.plugin.coda.formats.SpillingHashJoin;
+import io.kestra.plugin.coda.models.CodaColumn;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Enrich the records of a file with the columns of a Coda table.",
+    description = "The table is read once, page by page, into a hash index on `keyColumn`. The file is then read once, " +
+        "and each record is joined to the row whose key matches its `keyField`. The enriched records are written to an " +
+        "ION file. Enriching a file thus costs one listing of the table, whatever the number of records. " +
+        "When the index exceeds `memoryBudget`, the table and the file are partitioned on disk and joined one " +
+        "partition at a time; the output records are then no longer in input order."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Add the segment and owner of each customer to an extract of orders.",
+            full = true,
+            code = """
+                id: coda_enrich_file
+                namespace: company.team
+
+                tasks:
+                  - id: enrich
+                    type: io.kestra.plugin.coda.EnrichFile
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    tableId: "Customers"
+                    keyColumn: "Customer ID"
+                    from: "{{ outputs.extract.uri }}"
+                    keyField: customer_id
+                    columns:
+                      - Segment
+                      - Owner
+                    prefix: "customer_"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of records written."),
+        @Metric(name = "matched", type = Counter.TYPE, description = "Number of records joined to a row."),
+        @Metric(name = "pages", type = Counter.TYPE, description = "Number of pages of rows fetched from the Coda API.")
+    }
+)
+public class EnrichFile extends CodaTask implements RunnableTask<EnrichFile.Output> {
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+
+    @Schema(
+        title = "Source file",
+        description = "The internal storage URI of the file to enrich."
+    )
+    @NotNull
+    private Property<String> from;
+
+    @Schema(
+        title = "Input format",
+        description = "The format of the source file. CSV files must have a header line."
+    )
+    @Builder.Default
+    private Property<InputFormat> format = Property.ofValue(InputFormat.ION);
+
+    @Schema(
+        title = "CSV field separator",
+        description = "The character separating fields in CSV files."
+    )
+    @Builder.Default
+    private Property<Character> fieldSeparator = Property.ofValue(',');
+
+    @Schema(
+        title = "Table ID",
+        description = "The ID or name of the table or view holding the enrichment columns."
+    )
+    @NotNull
+    private Property<String> tableId;
+
+    @Schema(
+        title = "Key column",
+        description = "The name or ID of the table column to join on. When several rows have the same key, the first one is used."
+    )
+    @NotNull
+    private Property<String> keyColumn;
+
+    @Schema(
+        title = "Key field",
+        description = "The record field to join on. Defaults to `keyColumn`. Numbers are matched by value, " +
+            "including numbers held as text as in CSV files, e.g. `42`, `42.0` and `\"42.0\"` match each other. " +
+            "Text with leading zeros, such as `\"007\"`, is a code and only matches the same text."
+    )
+    private Property<String> keyField;
+
+    @Schema(
+        title = "Columns",
+        description = "The names or IDs of the columns added to each record. Defaults to every column except the key column."
+    )
+    private Property<List<String>> columns;
+
+    @Schema(
+        title = "Prefix",
+        description = "The prefix of the added fields, to avoid overwriting record fields with the same name."
+    )
+    @Builder.Default
+    private Property<String> prefix = Property.ofValue("");
+
+    @Schema(
+        title = "Join type",
+        description = "With `LEFT`, records without a matching row are written without the added fields. " +
+            "With `INNER`, they are dropped."
+    )
+    @Builder.Default
+    private Property<JoinType> joinType = Property.ofValue(JoinType.LEFT);
+
+    @Schema(
+        title = "Memory budget",
+        description = "The estimated number of bytes the index of the table may use before it is partitioned on disk. " +
+            "A partition still over the budget, as skewed keys make them, is split again up to 3 times before the task fails."
+    )
+    @Builder.Default
+    private Property<Long> memoryBudget = Property.ofValue(64L * 1024 * 1024);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        String rTableId = runContext.render(tableId).as(String.class).orElseThrow();
+        String rKeyColumn = runContext.render(keyColumn).as(String.class).orElseThrow();
+        String rKeyField = runContext.render(keyField).as(String.class).orElse(rKeyColumn);
+        List<String> rColumns = runContext.render(columns).asList(String.class);
+        String rPrefix = runContext.render(prefix).as(String.class).orElse("");
+        JoinType rJoinType = runContext.render(joinType).as(JoinType.class).orElseThrow();
+        URI rFrom = URI.create(runContext.render(from).as(String.class).orElseThrow());
+        InputFormat rFormat = runContext.render(format).as(InputFormat.class).orElseThrow();
+        char rFieldSeparator = runContext.render(fieldSeparator).as(Character.class).orElseThrow();
+        long rMemoryBudget = runContext.render(memoryBudget).as(Long.class).orElseThrow();
+
+        CodaConnection connection = createConnection(runContext);
+        List<CodaColumn> tableColumns = listColumns(connection, rDocId, rTableId);
+        CodaColumn key = findColumn(tableColumns, rKeyColumn, rTableId);
+
+        RowSchema schema = RowSchema.of(tableColumns);
+
+        // the fields added to each record, by the name of their column in the records of the table
+        Map<String, String> addedFields = new LinkedHashMap<>();
+        if (rColumns.isEmpty()) {
+            tableColumns.stream()
+                .filter(column -> !column.getId().equals(key.getId()))
+                .map(column -> schema.fieldName(column.getId()))
+                .forEach(field -> addedFields.put(field, rPrefix + field));
+        } else {
+            for (String column : rColumns) {
+                String field = schema.fieldName(findColumn(tableColumns, column, rTableId).getId());
+                addedFields.put(field, rPrefix + field);
+            }
+        }
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(rDocId, rTableId), Map.of("limit", 500)),
+            ROWS_PAGE
+        );
+
+        Path outputFile = runContext.workingDir().createTempFile(".ion");
+        long[] counts = new long[2];
+        boolean spilled;
+
+        try (SpillingHashJoin join = new SpillingHashJoin(runContext.workingDir().path(), rMemoryBudget)) {
+            while (pager.hasNext()) {
+                for (CodaRow row : pager.next()) {
+                    String rowKey = row.getValues() != null ? RowKeys.normalize(row.getValues().get(key.getId())) : null;
+                    if (rowKey == null) {
+                        continue;
+                    }
+
+                    Map<String, Object> record = schema.toRecord(row);
+                    Map<String, Object> values = new LinkedHashMap<>();
+                    addedFields.forEach((column, field) -> values.put(field, record.get(column)));
+                    join.build(rowKey, values);
+                }
+            }
+            spilled = join.isSpilled();
+
+            try (InputStream input = runContext.storage().getFile(rFrom);
+                 RecordReader reader = RecordReader.open(rFormat, input, rFieldSeparator);
+                 OutputStream output = new BufferedOutputStream(Files.newOutputStream(outputFile), FileSerde.BUFFER_SIZE)) {
+                SpillingHashJoin.Emitter emitter = (record, match) -> {
+                    if (match == null && rJoinType == JoinType.INNER) {
+                        return;
+                    }
+
+                    Map<String, Object> enriched = new LinkedHashMap<>(record);
+                    if (match != null) {
+                        enriched.putAll(match);
+                        counts[1]++;
+                    }
+                    FileSerde.write(output, enriched);
+                    counts[0]++;
+                };
+
+                Map<String, Object> record;
+                while ((record = reader.next()) != null) {
+                    join.probe(RowKeys.normalize(record.get(rKeyField)), record, emitter);
+                }
+                join.finish(emitter);
+            }
+        }
+
+        logger.info(
+            "Enriched {} records with table {} ({} matched, {} pages{})",
+            counts[0], rTableId, counts[1], pager.getPageCount(), spilled ? ", partitioned on disk" : ""
+        );
+
+        runContext.metric(Counter.of("records", counts[0]));
+        runContext.metric(Counter.of("matched", counts[1]));
+        runContext.metric(Counter.of("pages", pager.getPageCount()));
+
+        URI uri = runContext.storage().putFile(outputFile.toFile());
+
+        return Output.builder()
+            .uri(uri)
+            .size(counts[0])
+            .matched(counts[1])
+            .spilled(spilled)
+            .build();
+    }
+
+    private static CodaColumn findColumn(List<CodaColumn> columns, String nameOrId, String tableId) {
+        return columns.stream()
+            .filter(column -> nameOrId.equals(column.getId()) || nameOrId.equals(column.getName()))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Column '" + nameOrId + "' does not exist in table " + tableId));
+    }
+
+    public enum JoinType {
+        LEFT,
+        INNER
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the enriched file in internal storage"
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "Number of records written"
+        )
+        private final Long size;
+
+        @Schema(
+            title = "Number of records joined to a row"
+        )
+        private final Long matched;
+
+        @Schema(
+            title = "Whether the index exceeded the memory budget and was partitioned on disk"
+        )
+        private final Boolean spilled;
+    }
+}
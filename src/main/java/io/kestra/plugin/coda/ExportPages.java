@@ -0,0 +1,400 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.CodaPager;
+import io.kestra.plugin.coda.client.Tracing;
+import io.kestra.plugin.coda.exceptions.CodaResourceNotFoundException;
+import io.kestra.plugin.coda.models.CodaPage;
+import io.kestra.plugin.coda.models.PageExportRequest;
+import io.kestra.plugin.coda.models.PageExportStatus;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Export the content of Coda pages to files in internal storage.",
+    description = "The export API is asynchronous: an export is started per page, its status is polled until it is " +
+        "complete, then the content is downloaded from a temporary link. This task starts up to `maxInProgress` " +
+        "exports at once, polls all the exports in progress together, every `pollInterval` and backing off up to " +
+        "`maxPollInterval` while none completes, and streams each download straight to internal storage. " +
+        "All the API calls, up to `concurrency` at a time, go through the rate limiting and retries of the connection. " +
+        "The status of a new export can take a moment to be visible; a page whose status is still not found after " +
+        "`maxNotFoundPolls` consecutive checks is reported as failed, as is a page whose export started without a request ID. " +
+        "The outcome of each page is written to an ION file, with the URI of its content."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Archive every page of a document as Markdown, every night.",
+            full = true,
+            code = """
+                id: coda_archive_pages
+                namespace: company.team
+
+                tasks:
+                  - id: export
+                    type: io.kestra.plugin.coda.ExportPages
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    outputFormat: MARKDOWN
+
+                triggers:
+                  - id: nightly
+                    type: io.kestra.plugin.core.trigger.Schedule
+                    cron: "0 2 * * *"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "pages", type = Counter.TYPE, description = "Number of pages exported."),
+        @Metric(name = "failed.pages", type = Counter.TYPE, description = "Number of pages that could not be exported."),
+        @Metric(name = "bytes", type = Counter.TYPE, description = "Number of bytes downloaded, when the sizes are known."),
+        @Metric(name = "polls", type = Counter.TYPE, description = "Number of export status checks.")
+    }
+)
+public class ExportPages extends CodaTask implements RunnableTask<ExportPages.Output> {
+    private static final TypeReference<PagedResponse<CodaPage>> PAGES_PAGE = new TypeReference<>() {};
+
+    @Schema(
+        title = "Pages",
+        description = "The IDs or names of the pages to export. Defaults to every page of the document."
+    )
+    private Property<List<String>> pages;
+
+    @Schema(
+        title = "Output format",
+        description = "The format of the exported content."
+    )
+    @Builder.Default
+    private Property<ContentFormat> outputFormat = Property.ofValue(ContentFormat.MARKDOWN);
+
+    @Schema(
+        title = "Concurrency",
+        description = "The maximum number of API calls and downloads made at the same time."
+    )
+    @Builder.Default
+    private Property<Integer> concurrency = Property.ofValue(8);
+
+    @Schema(
+        title = "Maximum exports in progress",
+        description = "The maximum number of exports started and not yet downloaded at any time."
+    )
+    @Builder.Default
+    private Property<Integer> maxInProgress = Property.ofValue(50);
+
+    @Schema(
+        title = "Poll interval",
+        description = "The delay between two status checks of the exports in progress, after some export completed."
+    )
+    @Builder.Default
+    private Property<Duration> pollInterval = Property.ofValue(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "Maximum poll interval",
+        description = "The delay between status checks doubles while no export completes, up to this."
+    )
+    @Builder.Default
+    private Property<Duration> maxPollInterval = Property.ofValue(Duration.ofSeconds(30));
+
+    @Schema(
+        title = "Maximum not found polls",
+        description = "The number of consecutive status checks an export may be not found for before the page is " +
+            "reported as failed. As the delay between checks backs off while no export completes, the default gives " +
+            "the status about three minutes to become visible with the default poll intervals."
+    )
+    @Builder.Default
+    private Property<Integer> maxNotFoundPolls = Property.ofValue(10);
+
+    @Schema(
+        title = "Fail on error",
+        description = "Whether the task fails when at least one page could not be exported. The other pages are exported in any case."
+    )
+    @Builder.Default
+    private Property<Boolean> failOnError = Property.ofValue(true);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        List<String> rPages = runContext.render(pages).asList(String.class);
+        ContentFormat rContentFormat = runContext.render(outputFormat).as(ContentFormat.class).orElseThrow();
+        int rConcurrency = atLeastOne("concurrency", runContext.render(concurrency).as(Integer.class).orElseThrow());
+        int rMaxInProgress = atLeastOne("maxInProgress", runContext.render(maxInProgress).as(Integer.class).orElseThrow());
+        Duration rPollInterval = positive("pollInterval", runContext.render(pollInterval).as(Duration.class).orElseThrow());
+        Duration rMaxPollInterval = positive("maxPollInterval", runContext.render(maxPollInterval).as(Duration.class).orElseThrow());
+        int rMaxNotFoundPolls = atLeastOne("maxNotFoundPolls", runContext.render(maxNotFoundPolls).as(Integer.class).orElseThrow());
+
+        CodaConnection connection = createConnection(runContext);
+        List<PageExport> exports = (rPages.isEmpty() ? listPages(connection, rDocId) : rPages).stream()
+            .map(PageExport::new)
+            .toList();
+        logger.info("Exporting {} pages of document {} as {}", exports.size(), rDocId, rContentFormat);
+
+        Deque<PageExport> waiting = new ArrayDeque<>(exports);
+        List<PageExport> inProgress = new ArrayList<>();
+        long polls = 0;
+
+        ExecutorService executor = Tracing.propagateContext(Executors.newFixedThreadPool(rConcurrency));
+        try {
+            Duration interval = rPollInterval;
+            while (!waiting.isEmpty() || !inProgress.isEmpty()) {
+                List<PageExport> starting = new ArrayList<>();
+                while (!waiting.isEmpty() && inProgress.size() + starting.size() < rMaxInProgress) {
+                    starting.add(waiting.poll());
+                }
+                runAll(executor, starting, export -> export.start(connection, rDocId, rContentFormat));
+                starting.stream().filter(PageExport::isPending).forEach(inProgress::add);
+
+                if (inProgress.isEmpty()) {
+                    continue;
+                }
+
+                Thread.sleep(interval.toMillis());
+                runAll(executor, inProgress, export -> export.poll(connection, rDocId, rMaxNotFoundPolls));
+                polls += inProgress.size();
+
+                List<PageExport> finished = inProgress.stream().filter(export -> !export.isPending()).toList();
+                runAll(
+                    executor,
+                    finished.stream().filter(export -> export.downloadLink != null).toList(),
+                    export -> export.download(runContext, connection, rContentFormat)
+                );
+                inProgress.removeAll(finished);
+
+                // exports of similar pages complete together, so the interval resets as soon as one does
+                interval = finished.isEmpty() ? min(interval.multipliedBy(2), rMaxPollInterval) : rPollInterval;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Path resultsFile = runContext.workingDir().createTempFile(".ion");
+        long failures = 0;
+        long bytes = 0;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(resultsFile), FileSerde.BUFFER_SIZE)) {
+            for (PageExport export : exports) {
+                FileSerde.write(output, export.toResult());
+                if (export.error != null) {
+                    failures++;
+                    logger.warn("Unable to export page {}: {}", export.page, export.error);
+                } else if (export.size > 0) {
+                    bytes += export.size;
+                }
+            }
+        }
+
+        logger.info("Exported {} pages of document {}, {} failed, with {} status checks", exports.size() - failures, rDocId, failures, polls);
+
+        runContext.metric(Counter.of("pages", exports.size() - failures));
+        runContext.metric(Counter.of("failed.pages", failures));
+        runContext.metric(Counter.of("bytes", bytes));
+        runContext.metric(Counter.of("polls", polls));
+
+        URI uri = runContext.storage().putFile(resultsFile.toFile());
+
+        if (failures > 0 && runContext.render(failOnError).as(Boolean.class).orElseThrow()) {
+            throw new IllegalStateException(String.format(
+                "%d of %d pages could not be exported, see the results file at %s",
+                failures, exports.size(), uri
+            ));
+        }
+
+        return Output.builder()
+            .uri(uri)
+            .pages(exports.size())
+            .failedPages(failures)
+            .build();
+    }
+
+    private static List<String> listPages(CodaConnection connection, String docId) throws Exception {
+        CodaPager<CodaPage> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.pages(docId), Map.of("limit", 100)),
+            PAGES_PAGE
+        );
+
+        List<String> pageIds = new ArrayList<>();
+        while (pager.hasNext()) {
+            pager.next().forEach(page -> pageIds.add(page.getId()));
+        }
+        return pageIds;
+    }
+
+    /**
+     * Runs a step for each export on the executor and waits for all of them. Steps record their own failures.
+     */
+    private static void runAll(ExecutorService executor, List<PageExport> exports, Step step) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(exports.size());
+        for (PageExport export : exports) {
+            futures.add(executor.submit(() -> {
+                try {
+                    step.run(export);
+                } catch (Exception e) {
+                    export.error = e.getMessage();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    // a value below one would make the export loop spin without ever starting or polling an export
+    private static int atLeastOne(String property, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("The '" + property + "' property must be at least 1, got " + value);
+        }
+        return value;
+    }
+
+    private static Duration positive(String property, Duration value) {
+        if (value.isNegative() || value.isZero()) {
+            throw new IllegalArgumentException("The '" + property + "' property must be positive, got " + value);
+        }
+        return value;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run(PageExport export) throws Exception;
+    }
+
+    /**
+     * The progress of the export of one page. Each step is run by one thread at a time.
+     */
+    private static class PageExport {
+        private final String page;
+        private volatile String requestId;
+        private volatile String downloadLink;
+        private volatile URI uri;
+        private volatile long size = -1;
+        private volatile String error;
+        private volatile int notFoundPolls;
+
+        PageExport(String page) {
+            this.page = page;
+        }
+
+        boolean isPending() {
+            return error == null && requestId != null && downloadLink == null;
+        }
+
+        void start(CodaConnection connection, String docId, ContentFormat format) throws Exception {
+            PageExportStatus started = connection.post(
+                CodaEndpoints.pageExport(docId, page),
+                PageExportRequest.builder().outputFormat(format.getValue()).build(),
+                PageExportStatus.class
+            );
+            if (started == null || started.getId() == null) {
+                // without its ID the export can never be polled, so it would never complete
+                error = "The export was started without a request ID";
+                return;
+            }
+            requestId = started.getId();
+        }
+
+        void poll(CodaConnection connection, String docId, int maxNotFoundPolls) throws Exception {
+            PageExportStatus polled;
+            try {
+                polled = connection.get(CodaEndpoints.pageExportStatus(docId, page, requestId), PageExportStatus.class);
+            } catch (CodaResourceNotFoundException e) {
+                // the status of a new export can take a moment to be visible, but an export lost by the API never is
+                if (++notFoundPolls >= maxNotFoundPolls) {
+                    error = "The status of the export was still not found after " + notFoundPolls + " checks";
+                }
+                return;
+            }
+            notFoundPolls = 0;
+
+            if (PageExportStatus.FAILED.equals(polled.getStatus())) {
+                error = polled.getError() != null ? polled.getError() : "The export failed";
+            } else if (PageExportStatus.COMPLETE.equals(polled.getStatus())) {
+                downloadLink = polled.getDownloadLink();
+                if (downloadLink == null) {
+                    error = "The export completed without a download link";
+                }
+            }
+        }
+
+        void download(RunContext runContext, CodaConnection connection, ContentFormat format) throws Exception {
+            String fileName = page.replaceAll("[^A-Za-z0-9._-]", "_") + format.getExtension();
+            uri = connection.download(downloadLink, (body, contentLength) -> {
+                size = contentLength;
+                return runContext.storage().putFile(body, fileName);
+            });
+        }
+
+        Map<String, Object> toResult() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("page", page);
+            result.put("status", error == null ? "SUCCESS" : "FAILED");
+            result.put("uri", uri != null ? uri.toString() : null);
+            result.put("size", size >= 0 ? size : null);
+            result.put("error", error);
+            return result;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public enum ContentFormat {
+        HTML("html", ".html"),
+        MARKDOWN("markdown", ".md");
+
+        private final String value;
+        private final String extension;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the page results",
+            description = "One record per page, with its ID or name, its status, the URI and size of its content or its error."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "Number of pages selected"
+        )
+        private final Integer pages;
+
+        @Schema(
+            title = "Number of pages that could not be exported"
+        )
+        private final Long failedPages;
+    }
+}
@@ -0,0 +1,298 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.CodaPager;
+import io.kestra.plugin.coda.client.DocSelector;
+import io.kestra.plugin.coda.client.Tracing;
+import io.kestra.plugin.coda.formats.RowSchema;
+import io.kestra.plugin.coda.models.CodaDoc;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Export a table from many Coda documents into one file in internal storage.",
+    description = "The documents are selected by IDs, workspace, folder or name pattern, and the table is exported from " +
+        "up to `concurrency` documents at a time, with every call of the task sharing the `maxRequestsPerSecond` budget. " +
+        "The rows are written to one ION file page by page as they arrive, with the `_docId` and `_docName` of their " +
+        "document. A document that fails partway keeps the rows written before its failure: its record in the second " +
+        "file, written as soon as the document is done, has the `FAILED` status and the number of rows it left in the " +
+        "first file, so they can be filtered out by `_docId`. " +
+        "The table is looked up by name or ID in each document, so similar documents can use different table IDs."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Roll up the Invoices table of every client document of a folder.",
+            full = true,
+            code = """
+                id: coda_export_rows_from_docs
+                namespace: company.team
+
+                tasks:
+                  - id: export
+                    type: io.kestra.plugin.coda.ExportRowsFromDocs
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docs:
+                      folderId: "fl-1Ab234"
+                      namePattern: "Client - .*"
+                    tableId: "Invoices"
+                    concurrency: 16
+                    maxRequestsPerSecond: 15
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "docs", type = Counter.TYPE, description = "Number of documents exported."),
+        @Metric(name = "failed.docs", type = Counter.TYPE, description = "Number of documents that could not be exported."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows exported across all the documents.")
+    }
+)
+public class ExportRowsFromDocs extends AbstractCodaTask implements RunnableTask<ExportRowsFromDocs.Output> {
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+
+    @Schema(
+        title = "Documents",
+        description = "The selection of the documents to export the table from."
+    )
+    @NotNull
+    private Property<DocSelector> docs;
+
+    @Schema(
+        title = "Table ID",
+        description = "The ID or name of the table or view to export from each document."
+    )
+    @NotNull
+    private Property<String> tableId;
+
+    @Schema(
+        title = "Page size",
+        description = "The number of rows fetched per API request, up to 500."
+    )
+    @Builder.Default
+    private Property<Integer> pageSize = Property.ofValue(500);
+
+    @Schema(
+        title = "Query",
+        description = "Only return rows matching this query, e.g. `Status:\"Done\"`."
+    )
+    private Property<String> query;
+
+    @Schema(
+        title = "Concurrency",
+        description = "The maximum number of documents exported at the same time."
+    )
+    @Builder.Default
+    private Property<Integer> concurrency = Property.ofValue(8);
+
+    @Schema(
+        title = "Fail on error",
+        description = "Whether the task fails when at least one document could not be exported. The files are written in any case."
+    )
+    @Builder.Default
+    private Property<Boolean> failOnError = Property.ofValue(true);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        DocSelector rDocs = runContext.render(docs).as(DocSelector.class).orElseThrow();
+        String rTableId = runContext.render(tableId).as(String.class).orElseThrow();
+        int rConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("limit", runContext.render(pageSize).as(Integer.class).orElseThrow());
+        parameters.put("query", runContext.render(query).as(String.class).orElse(null));
+
+        CodaConnection connection = createConnection(runContext);
+        List<CodaDoc> selected = rDocs.resolve(connection);
+        logger.info("Exporting table {} from {} documents", rTableId, selected.size());
+
+        Path rowsFile = runContext.workingDir().createTempFile(".ion");
+        Path docsFile = runContext.workingDir().createTempFile(".ion");
+        AtomicLong records = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+
+        try (OutputStream rows = new BufferedOutputStream(Files.newOutputStream(rowsFile), FileSerde.BUFFER_SIZE);
+             OutputStream results = new BufferedOutputStream(Files.newOutputStream(docsFile), FileSerde.BUFFER_SIZE)) {
+            ExecutorService executor = Tracing.propagateContext(Executors.newFixedThreadPool(Math.max(1, Math.min(rConcurrency, selected.size()))));
+            try {
+                List<Future<?>> futures = new ArrayList<>(selected.size());
+                for (CodaDoc doc : selected) {
+                    futures.add(executor.submit(() -> {
+                        Map<String, Object> result = new LinkedHashMap<>();
+                        result.put("docId", doc.getId());
+                        result.put("docName", doc.getName());
+
+                        AtomicLong written = new AtomicLong();
+                        try {
+                            export(connection, doc, rTableId, parameters, rows, written);
+                            result.put("status", "SUCCESS");
+                            result.put("records", written.get());
+                        } catch (IOException e) {
+                            // a local write failure, unlike a failure of the API, would leave the files incomplete
+                            throw e;
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            logger.warn(
+                                "Unable to export table {} from document {}, {} rows were written before the failure: {}",
+                                rTableId, doc.getId(), written.get(), e.getMessage()
+                            );
+                            result.put("status", "FAILED");
+                            result.put("records", written.get());
+                            result.put("error", e.getMessage());
+                        } finally {
+                            records.addAndGet(written.get());
+                        }
+
+                        write(results, result);
+                        return null;
+                    }));
+                }
+
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        throw e.getCause() instanceof Exception cause ? cause : e;
+                    }
+                }
+            } finally {
+                // the remaining documents must not write to the files once they are closed
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        }
+
+        logger.info("Exported {} rows of table {} from {} documents, {} failed", records.get(), rTableId, selected.size(), failures.get());
+
+        runContext.metric(Counter.of("docs", selected.size() - failures.get()));
+        runContext.metric(Counter.of("failed.docs", failures.get()));
+        runContext.metric(Counter.of("records", records.get()));
+
+        URI rowsUri = runContext.storage().putFile(rowsFile.toFile());
+        URI docsUri = runContext.storage().putFile(docsFile.toFile());
+
+        if (failures.get() > 0 && runContext.render(failOnError).as(Boolean.class).orElseThrow()) {
+            throw new IllegalStateException(String.format(
+                "%d of %d documents could not be exported, see the results file at %s",
+                failures.get(), selected.size(), docsUri
+            ));
+        }
+
+        return Output.builder()
+            .uri(rowsUri)
+            .docsUri(docsUri)
+            .size(records.get())
+            .docs(selected.size())
+            .failedDocs(failures.get())
+            .build();
+    }
+
+    /**
+     * Exports the table of one document into the shared rows file, one page at a time. Each page is serialized
+     * before taking the lock of the file, so the documents only wait for each other while bytes are copied.
+     *
+     * @param written Incremented with the rows of every page written, which stay in the file if a later page fails
+     */
+    private void export(CodaConnection connection, CodaDoc doc, String tableId, Map<String, Object> parameters,
+                        OutputStream rows, AtomicLong written) throws Exception {
+        RowSchema schema = RowSchema.of(listColumns(connection, doc.getId(), tableId));
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(doc.getId(), tableId), parameters),
+            ROWS_PAGE
+        );
+
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        while (pager.hasNext()) {
+            List<CodaRow> items = pager.next();
+            page.reset();
+            for (CodaRow row : items) {
+                Map<String, Object> record = new LinkedHashMap<>();
+                record.put("_docId", doc.getId());
+                record.put("_docName", doc.getName());
+                record.putAll(schema.toRecord(row));
+                FileSerde.write(page, record);
+            }
+
+            synchronized (rows) {
+                page.writeTo(rows);
+            }
+            written.addAndGet(items.size());
+        }
+    }
+
+    private static void write(OutputStream results, Map<String, Object> result) throws IOException {
+        synchronized (results) {
+            FileSerde.write(results, result);
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the exported rows",
+            description = "The rows of every document, with the `_docId` and `_docName` of their document."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "URI of the document results",
+            description = "One record per document, with its ID, its name, its status, its number of rows and, if it failed, its error. " +
+                "The rows of a failed document are the ones written before its failure."
+        )
+        private final URI docsUri;
+
+        @Schema(
+            title = "Number of rows exported",
+            description = "Includes the rows written by the documents that failed partway."
+        )
+        private final Long size;
+
+        @Schema(
+            title = "Number of documents selected"
+        )
+        private final Integer docs;
+
+        @Schema(
+            title = "Number of documents that could not be exported"
+        )
+        private final Long failedDocs;
+    }
+}
@@ -0,0 +1,324 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.coda.client.AdaptiveBatchController;
+import io.kestra.plugin.coda.client.AdaptiveBatchingConfig;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.RowBatchWriter;
+import io.kestra.plugin.coda.formats.InputFormat;
+import io.kestra.plugin.coda.formats.RecordReader;
+import io.kestra.plugin.coda.models.CodaColumn;
+import io.kestra.plugin.coda.models.CodaRowCell;
+import io.kestra.plugin.coda.models.InsertRowsRequest;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.*;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Import rows into a Coda table from a file in internal storage.",
+    description = "The file is read as a stream and sent to Coda in batches of `chunkSize` rows, so importing a large " +
+        "file uses constant memory. Record fields are matched to columns by name or ID, once per run. " +
+        "Fields that do not match any column, and calculated columns, are ignored. " +
+        "When `keyColumns` is set, rows are upserted instead of inserted. " +
+        "An import is not atomic: if the file cannot be read to the end, the batches already sent stay in the table " +
+        "and the rows read since the last one are dropped, so the table holds the file up to a batch boundary. " +
+        "With `keyColumns`, running the import again once the file is fixed completes it without duplicates. " +
+        "With `adaptiveBatching`, the batch size and the number of batches in flight are tuned during the run from " +
+        "the observed latency, payload size and rate limiting."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Upsert the rows of a CSV file, matching on the Email column.",
+            full = true,
+            code = """
+                id: coda_import_csv
+                namespace: company.team
+
+                inputs:
+                  - id: file
+                    type: FILE
+
+                tasks:
+                  - id: import
+                    type: io.kestra.plugin.coda.ImportRows
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    tableId: "grid-abc123"
+                    from: "{{ inputs.file }}"
+                    format: CSV
+                    keyColumns:
+                      - Email
+                """
+        ),
+        @Example(
+            title = "Insert the rows of an ION file, renaming fields to column names.",
+            code = {
+                "apiToken: \"{{ secret('CODA_API_TOKEN') }}\"",
+                "docId: \"AbCDeFGH\"",
+                "tableId: \"grid-abc123\"",
+                "from: \"{{ outputs.extract.uri }}\"",
+                "columnMapping:",
+                "  customer_name: Customer",
+                "  amount_eur: Amount"
+            }
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of records sent to Coda."),
+        @Metric(name = "batches", type = Counter.TYPE, description = "Number of insert or upsert requests sent to Coda."),
+        @Metric(name = "backoffs", type = Counter.TYPE, description = "Number of times the batch size or concurrency was cut, with adaptive batching.")
+    }
+)
+public class ImportRows extends CodaTask implements RunnableTask<ImportRows.Output> {
+    @Schema(
+        title = "Table ID",
+        description = "The ID or name of the base table to import into. Views cannot be written to."
+    )
+    @NotNull
+    private Property<String> tableId;
+
+    @Schema(
+        title = "Source file",
+        description = "The internal storage URI of the file to import."
+    )
+    @NotNull
+    private Property<String> from;
+
+    @Schema(
+        title = "Input format",
+        description = "The format of the source file. CSV files must have a header line."
+    )
+    @Builder.Default
+    private Property<InputFormat> format = Property.ofValue(InputFormat.ION);
+
+    @Schema(
+        title = "CSV field separator",
+        description = "The character separating fields in CSV files."
+    )
+    @Builder.Default
+    private Property<Character> fieldSeparator = Property.ofValue(',');
+
+    @Schema(
+        title = "Column mapping",
+        description = "Maps record field names to column names or IDs. Fields absent from the mapping are matched " +
+            "to the column with the same name or ID."
+    )
+    private Property<Map<String, String>> columnMapping;
+
+    @Schema(
+        title = "Key columns",
+        description = "Names or IDs of the columns used to match existing rows. When set, rows are upserted."
+    )
+    private Property<List<String>> keyColumns;
+
+    @Schema(
+        title = "Chunk size",
+        description = "The maximum number of rows sent per request, and held in memory at any time."
+    )
+    @Builder.Default
+    private Property<Integer> chunkSize = Property.ofValue(100);
+
+    @Schema(
+        title = "Adaptive batching",
+        description = "When set, `chunkSize` is only the initial batch size. Each batch acknowledged within the target " +
+            "latency grows the batch size by a step, and each round of them allows one more batch in flight; slow " +
+            "batches halve the batch size, and rate limiting halves the concurrency too. Batches are capped by the " +
+            "payload size, and a batch rejected as too large is split. As several batches are in flight, they may be " +
+            "applied out of order: avoid it when the same key appears several times in the file."
+    )
+    private Property<AdaptiveBatchingConfig> adaptiveBatching;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        String rTableId = runContext.render(tableId).as(String.class).orElseThrow();
+        URI rFrom = URI.create(runContext.render(from).as(String.class).orElseThrow());
+        InputFormat rFormat = runContext.render(format).as(InputFormat.class).orElseThrow();
+        char rFieldSeparator = runContext.render(fieldSeparator).as(Character.class).orElseThrow();
+        Map<String, String> rColumnMapping = runContext.render(columnMapping).asMap(String.class, String.class);
+        List<String> rKeyColumns = runContext.render(keyColumns).asList(String.class);
+        int rChunkSize = runContext.render(chunkSize).as(Integer.class).orElseThrow();
+        AdaptiveBatchController controller = runContext.render(adaptiveBatching).as(AdaptiveBatchingConfig.class)
+            .map(config -> new AdaptiveBatchController(config, rChunkSize))
+            .orElse(null);
+
+        CodaConnection connection = createConnection(runContext);
+        ColumnResolver resolver = new ColumnResolver(listColumns(connection, rDocId, rTableId), rColumnMapping);
+
+        List<String> keyColumnIds = new ArrayList<>(rKeyColumns.size());
+        for (String keyColumn : rKeyColumns) {
+            String columnId = resolver.resolveColumn(keyColumn);
+            if (columnId == null) {
+                throw new IllegalArgumentException("Key column '" + keyColumn + "' does not exist in table " + rTableId);
+            }
+            keyColumnIds.add(columnId);
+        }
+
+        long records = 0;
+        RowBatchWriter writer = controller != null
+            ? new RowBatchWriter(connection, rDocId, rTableId, keyColumnIds, controller)
+            : new RowBatchWriter(connection, rDocId, rTableId, keyColumnIds, rChunkSize);
+
+        // closed last, so that the batches in flight are awaited even when reading the file fails
+        try (writer;
+             InputStream input = runContext.storage().getFile(rFrom);
+             RecordReader reader = RecordReader.open(rFormat, input, rFieldSeparator)) {
+            Map<String, Object> record;
+            try {
+                while ((record = reader.next()) != null) {
+                    writer.write(resolver.toRow(record));
+                    records++;
+                }
+            } catch (Exception e) {
+                // closing the writer would send the rows read before the failure as a last partial batch
+                int dropped = writer.discard();
+                logger.warn("Import into table {} stopped after {} records, the last {} of them were not sent", rTableId, records, dropped);
+                throw e;
+            }
+        }
+
+        if (!resolver.getIgnoredFields().isEmpty()) {
+            logger.warn("Ignored fields not matching any writable column: {}", resolver.getIgnoredFields());
+        }
+
+        logger.info("Sent {} records to table {} in {} batches", records, rTableId, writer.getBatchCount());
+
+        runContext.metric(Counter.of("records", records));
+        runContext.metric(Counter.of("batches", writer.getBatchCount()));
+
+        if (controller != null) {
+            logger.info("Adaptive batching ended with {}", controller);
+
+            runContext.metric(Counter.of("backoffs", controller.getBackoffs()));
+        }
+
+        return Output.builder()
+            .size(records)
+            .batches(writer.getBatchCount())
+            .lastRequestId(writer.getLastRequestId())
+            .batchSize(controller != null ? controller.getBatchSize() : null)
+            .maxBatchSize(controller != null ? controller.getLargestBatchSize() : null)
+            .concurrency(controller != null ? controller.getConcurrency() : null)
+            .build();
+    }
+
+    /**
+     * Maps record fields to column IDs, resolving each distinct field name only once.
+     */
+    static class ColumnResolver {
+        private final Map<String, String> columnIds = new HashMap<>();
+        private final Map<String, String> columnMapping;
+        private final Map<String, String> resolvedFields = new HashMap<>();
+
+        @Getter
+        private final Set<String> ignoredFields = new LinkedHashSet<>();
+
+        ColumnResolver(List<CodaColumn> columns, Map<String, String> columnMapping) {
+            this.columnMapping = columnMapping;
+
+            for (CodaColumn column : columns) {
+                if (Boolean.TRUE.equals(column.getCalculated())) {
+                    continue;
+                }
+                if (column.getName() != null) {
+                    columnIds.putIfAbsent(column.getName(), column.getId());
+                }
+                columnIds.put(column.getId(), column.getId());
+            }
+        }
+
+        /**
+         * @return The ID of the writable column with the given name or ID, or null if there is none
+         */
+        String resolveColumn(String nameOrId) {
+            return columnIds.get(nameOrId);
+        }
+
+        InsertRowsRequest.RowData toRow(Map<String, Object> record) {
+            InsertRowsRequest.RowData.RowDataBuilder row = InsertRowsRequest.RowData.builder();
+
+            for (Map.Entry<String, Object> field : record.entrySet()) {
+                String columnId = resolvedFields.computeIfAbsent(field.getKey(), this::resolveField);
+                if (columnId.isEmpty()) {
+                    continue;
+                }
+
+                row.cell(CodaRowCell.builder()
+                    .column(columnId)
+                    .value(field.getValue())
+                    .build());
+            }
+
+            return row.build();
+        }
+
+        private String resolveField(String field) {
+            String columnId = resolveColumn(columnMapping.getOrDefault(field, field));
+            if (columnId == null) {
+                ignoredFields.add(field);
+                return "";
+            }
+            return columnId;
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Number of records sent to Coda"
+        )
+        private final Long size;
+
+        @Schema(
+            title = "Number of insert or upsert requests sent"
+        )
+        private final Integer batches;
+
+        @Schema(
+            title = "Request ID of the last mutation",
+            description = "Coda applies mutations asynchronously; this ID can be used to check that the import has been applied. " +
+                "It is the ID of the last batch in submission order; with `adaptiveBatching`, batches are sent " +
+                "concurrently and an earlier one may still be pending once it is applied."
+        )
+        private final String lastRequestId;
+
+        @Schema(
+            title = "Batch size reached at the end of the run",
+            description = "Only set with `adaptiveBatching`."
+        )
+        private final Integer batchSize;
+
+        @Schema(
+            title = "Largest batch size used",
+            description = "Only set with `adaptiveBatching`."
+        )
+        private final Integer maxBatchSize;
+
+        @Schema(
+            title = "Number of batches allowed in flight at the end of the run",
+            description = "Only set with `adaptiveBatching`."
+        )
+        private final Integer concurrency;
+    }
+}
@@ -0,0 +1,201 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.TableMirror;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Look up a row of a Coda table by key from a local mirror of the table.",
+    description = "The first lookup loads the whole table into memory on the worker, indexed by `keyColumn`. The mirror " +
+        "is then kept up to date in the background with the rows changed since the previous refresh, so later lookups " +
+        "are answered locally in microseconds without calling the Coda API. A lookup never returns data older than " +
+        "`maxStaleness`: when the mirror is older, it is refreshed first. " +
+        "Use it for configuration and mapping tables that are read far more often than they change. " +
+        "The mirror is shared by all the tasks of the worker using the same token, table and key column. It is held " +
+        "on the heap of the worker and bounded by `maxRows`; the mirrors of a worker together hold at most one million " +
+        "rows by default, set by the `io.kestra.plugin.coda.mirror.maxWorkerRows` system property, and the mirrors " +
+        "used least recently are dropped to stay within it."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Map a country code to its region using a mapping table.",
+            full = true,
+            code = """
+                id: coda_lookup_row
+                namespace: company.team
+
+                inputs:
+                  - id: country
+                    type: STRING
+
+                tasks:
+                  - id: lookup
+                    type: io.kestra.plugin.coda.LookupRow
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    tableId: "Countries"
+                    keyColumn: "Code"
+                    key: "{{ inputs.country }}"
+                    maxStaleness: PT10M
+
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "Region: {{ outputs.lookup.row.Region }}"
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "hits", type = Counter.TYPE, description = "Number of lookups that found a row."),
+        @Metric(name = "misses", type = Counter.TYPE, description = "Number of lookups that found no row.")
+    }
+)
+public class LookupRow extends CodaTask implements RunnableTask<LookupRow.Output> {
+    @Schema(
+        title = "Table ID",
+        description = "The ID or name of the table to look up."
+    )
+    @NotNull
+    private Property<String> tableId;
+
+    @Schema(
+        title = "Key column",
+        description = "The name or ID of the column holding the key. When several rows have the same key, the first one in the table is returned."
+    )
+    @NotNull
+    private Property<String> keyColumn;
+
+    @Schema(
+        title = "Key",
+        description = "The value of the key column of the row to return. Numbers are matched by value, e.g. `42` matches `42.0`."
+    )
+    @NotNull
+    private Property<String> key;
+
+    @Schema(
+        title = "Maximum staleness",
+        description = "The maximum age of the mirror a lookup accepts. When the mirror is older, it is refreshed before the lookup."
+    )
+    @Builder.Default
+    private Property<Duration> maxStaleness = Property.ofValue(Duration.ofMinutes(5));
+
+    @Schema(
+        title = "Refresh interval",
+        description = "The delay between two background refreshes of the mirror. Keep it below `maxStaleness` so that " +
+            "lookups rarely wait for a refresh."
+    )
+    @Builder.Default
+    private Property<Duration> refreshInterval = Property.ofValue(Duration.ofMinutes(1));
+
+    @Schema(
+        title = "Full refresh interval",
+        description = "The delay between two full reloads of the table. Background refreshes only fetch changed rows, " +
+            "so deleted rows stay in the mirror until the next full reload. A mirror not used for this long is dropped."
+    )
+    @Builder.Default
+    private Property<Duration> fullRefreshInterval = Property.ofValue(Duration.ofHours(1));
+
+    @Schema(
+        title = "Maximum rows",
+        description = "The maximum number of rows the mirror holds. Looking up a larger table fails, as a partial mirror " +
+            "would miss keys."
+    )
+    @Builder.Default
+    private Property<Integer> maxRows = Property.ofValue(100_000);
+
+    @Schema(
+        title = "Fail if missing",
+        description = "Whether the task fails when no row has the key."
+    )
+    @Builder.Default
+    private Property<Boolean> failIfMissing = Property.ofValue(false);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        String rTableId = runContext.render(tableId).as(String.class).orElseThrow();
+        String rKeyColumn = runContext.render(keyColumn).as(String.class).orElseThrow();
+        String rKey = runContext.render(key).as(String.class).orElseThrow();
+        Duration rMaxStaleness = runContext.render(maxStaleness).as(Duration.class).orElseThrow();
+
+        // the mirror outlives this execution, so its connection has no deadline and does not log to the execution
+        CodaConnection connection = createConnection(runContext, null, LoggerFactory.getLogger(TableMirror.class));
+        TableMirror mirror = TableMirror.of(
+            connection,
+            rDocId,
+            rTableId,
+            rKeyColumn,
+            runContext.render(maxRows).as(Integer.class).orElseThrow(),
+            runContext.render(refreshInterval).as(Duration.class).orElseThrow(),
+            runContext.render(fullRefreshInterval).as(Duration.class).orElseThrow()
+        );
+
+        TableMirror.Match match = mirror.lookup(rKey, rMaxStaleness);
+        CodaRow row = match.row();
+
+        logger.debug("Looked up '{}' in the mirror of table {} ({} rows, refreshed at {})", rKey, rTableId, match.size(), match.refreshedAt());
+
+        runContext.metric(Counter.of(row != null ? "hits" : "misses", 1));
+
+        if (row == null && runContext.render(failIfMissing).as(Boolean.class).orElseThrow()) {
+            throw new IllegalStateException("No row of table " + rTableId + " has '" + rKey + "' in column " + rKeyColumn);
+        }
+
+        return Output.builder()
+            .found(row != null)
+            .rowId(row != null ? row.getId() : null)
+            .row(row != null ? match.schema().toRecord(row) : null)
+            .refreshedAt(match.refreshedAt())
+            .build();
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Whether a row has the key"
+        )
+        private final Boolean found;
+
+        @Schema(
+            title = "ID of the row found"
+        )
+        private final String rowId;
+
+        @Schema(
+            title = "Row found",
+            description = "The values of the row keyed by field name, the column name with only letters, digits and underscores, with its `_id`, `_name`, `_index`, `_createdAt` and `_updatedAt`."
+        )
+        private final Map<String, Object> row;
+
+        @Schema(
+            title = "Time of the last refresh of the mirror",
+            description = "The row is at least as recent as the table was at this time."
+        )
+        private final Instant refreshedAt;
+    }
+}
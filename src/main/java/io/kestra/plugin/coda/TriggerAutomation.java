@@ -0,0 +1,352 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.client.CodaConnection;
+import io.kestra.plugin.coda.client.CodaEndpoints;
+import io.kestra.plugin.coda.client.Tracing;
+import io.kestra.plugin.coda.formats.InputFormat;
+import io.kestra.plugin.coda.formats.RecordReader;
+import io.kestra.plugin.coda.models.AutomationResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Trigger a webhook-invoked Coda automation for many payloads.",
+    description = "Each payload is posted to the automation rule, with up to `concurrency` requests in flight over a " +
+        "shared HTTP/2 connection. Payloads can be given inline or read as a stream from a file in internal storage. " +
+        "With `batchSize` greater than 1, several records are packed into one payload under the `batchKey` field, and " +
+        "the automation iterates over them with `ParseJSON([Step 1 Result], \"items\")`. " +
+        "The result of every request is written to a file in internal storage as it completes."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Trigger an automation once per record of a file, 20 records per call.",
+            full = true,
+            code = """
+                id: coda_trigger_automation
+                namespace: company.team
+
+                tasks:
+                  - id: trigger
+                    type: io.kestra.plugin.coda.TriggerAutomation
+                    apiToken: "{{ secret('CODA_API_TOKEN') }}"
+                    docId: "AbCDeFGH"
+                    ruleId: "grid-auto-AbCDeFGH"
+                    from: "{{ outputs.extract.uri }}"
+                    batchSize: 20
+                    concurrency: 8
+                """
+        ),
+        @Example(
+            title = "Trigger an automation with an inline payload.",
+            code = {
+                "apiToken: \"{{ secret('CODA_API_TOKEN') }}\"",
+                "docId: \"AbCDeFGH\"",
+                "ruleId: \"grid-auto-AbCDeFGH\"",
+                "payloads:",
+                "  - name: John Doe",
+                "    status: Active"
+            }
+        )
+    },
+    metrics = {
+        @Metric(name = "requests", type = Counter.TYPE, description = "Number of automation requests sent."),
+        @Metric(name = "failures", type = Counter.TYPE, description = "Number of automation requests that failed.")
+    }
+)
+public class TriggerAutomation extends CodaTask implements RunnableTask<TriggerAutomation.Output> {
+    @Schema(
+        title = "Automation rule ID",
+        description = "The ID of the webhook-invoked automation rule, found in the webhook URL generated by Coda, e.g. `grid-auto-AbCDeFGH`."
+    )
+    @NotNull
+    private Property<String> ruleId;
+
+    @Schema(
+        title = "Inline payloads",
+        description = "The payloads to send. Either `payloads` or `from` must be set."
+    )
+    private Property<List<Map<String, Object>>> payloads;
+
+    @Schema(
+        title = "Source file",
+        description = "The internal storage URI of a file with one payload per record. Either `payloads` or `from` must be set."
+    )
+    private Property<String> from;
+
+    @Schema(
+        title = "Input format",
+        description = "The format of the source file."
+    )
+    @Builder.Default
+    private Property<InputFormat> format = Property.ofValue(InputFormat.ION);
+
+    @Schema(
+        title = "CSV field separator",
+        description = "The character separating fields in CSV files."
+    )
+    @Builder.Default
+    private Property<Character> fieldSeparator = Property.ofValue(',');
+
+    @Schema(
+        title = "Batch size",
+        description = "The number of records packed into one payload. With 1, each record is sent as is."
+    )
+    @Builder.Default
+    private Property<Integer> batchSize = Property.ofValue(1);
+
+    @Schema(
+        title = "Batch key",
+        description = "The field holding the array of records in a batched payload."
+    )
+    @Builder.Default
+    private Property<String> batchKey = Property.ofValue("items");
+
+    @Schema(
+        title = "Concurrency",
+        description = "The maximum number of requests in flight. It is also bounded by `maxConcurrentRequests`."
+    )
+    @Builder.Default
+    private Property<Integer> concurrency = Property.ofValue(8);
+
+    @Schema(
+        title = "Fail on error",
+        description = "Whether the task fails when at least one request failed. The results file is written in any case."
+    )
+    @Builder.Default
+    private Property<Boolean> failOnError = Property.ofValue(true);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String rDocId = getDocId(runContext);
+        String rRuleId = runContext.render(ruleId).as(String.class).orElseThrow();
+        List<Map<String, Object>> rPayloads = renderPayloads(runContext);
+        Optional<String> rFrom = runContext.render(from).as(String.class);
+        int rBatchSize = runContext.render(batchSize).as(Integer.class).orElseThrow();
+        String rBatchKey = runContext.render(batchKey).as(String.class).orElseThrow();
+        int rConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+
+        if (rPayloads.isEmpty() == rFrom.isEmpty()) {
+            throw new IllegalArgumentException("Exactly one of 'payloads' or 'from' must be set");
+        }
+
+        CodaConnection connection = createConnection(runContext);
+        String endpoint = CodaEndpoints.automation(rDocId, rRuleId);
+
+        Path resultsFile = runContext.workingDir().createTempFile(".ion");
+        AtomicLong successes = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        AtomicReference<IOException> writeFailure = new AtomicReference<>();
+        long requests = 0;
+
+        ExecutorService executor = Tracing.propagateContext(Executors.newFixedThreadPool(rConcurrency));
+        Semaphore inFlight = new Semaphore(rConcurrency);
+
+        try (OutputStream results = new BufferedOutputStream(Files.newOutputStream(resultsFile), FileSerde.BUFFER_SIZE);
+             RecordReader reader = rFrom.isPresent()
+                 ? RecordReader.open(
+                     runContext.render(format).as(InputFormat.class).orElseThrow(),
+                     runContext.storage().getFile(URI.create(rFrom.get())),
+                     runContext.render(fieldSeparator).as(Character.class).orElseThrow()
+                 )
+                 : new ListRecordReader(rPayloads)) {
+            List<Map<String, Object>> batch = new ArrayList<>(rBatchSize);
+            long recordIndex = 0;
+            Map<String, Object> record;
+
+            do {
+                throwIfFailed(writeFailure);
+                record = reader.next();
+                if (record != null) {
+                    batch.add(record);
+                }
+
+                if (!batch.isEmpty() && (batch.size() >= rBatchSize || record == null)) {
+                    Object payload = rBatchSize > 1 ? Map.of(rBatchKey, List.copyOf(batch)) : batch.getFirst();
+                    long firstRecord = recordIndex;
+                    int recordCount = batch.size();
+                    recordIndex += recordCount;
+                    batch.clear();
+                    requests++;
+
+                    inFlight.acquire();
+                    executor.execute(() -> {
+                        try {
+                            Map<String, Object> result = send(connection, endpoint, payload, firstRecord, recordCount);
+                            ("SUCCESS".equals(result.get("status")) ? successes : failures).incrementAndGet();
+                            write(results, result);
+                        } catch (IOException e) {
+                            writeFailure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+            } while (record != null);
+
+            executor.shutdown();
+            if (!executor.awaitTermination(1, TimeUnit.DAYS)) {
+                throw new IllegalStateException("Timed out waiting for automation requests to complete");
+            }
+            // a truncated results file would hide requests that were sent
+            throwIfFailed(writeFailure);
+            if (successes.get() + failures.get() != requests) {
+                throw new IllegalStateException(String.format(
+                    "Only %d of %d automation requests completed, the others failed unexpectedly",
+                    successes.get() + failures.get(), requests
+                ));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("Triggered automation {} with {} requests: {} succeeded, {} failed", rRuleId, requests, successes.get(), failures.get());
+
+        runContext.metric(Counter.of("requests", requests));
+        runContext.metric(Counter.of("failures", failures.get()));
+
+        URI uri = runContext.storage().putFile(resultsFile.toFile());
+
+        if (failures.get() > 0 && runContext.render(failOnError).as(Boolean.class).orElseThrow()) {
+            throw new IllegalStateException(String.format(
+                "%d of %d automation requests failed, see the results file at %s",
+                failures.get(), requests, uri
+            ));
+        }
+
+        return Output.builder()
+            .uri(uri)
+            .requests(requests)
+            .successes(successes.get())
+            .failures(failures.get())
+            .build();
+    }
+
+    private static Map<String, Object> send(CodaConnection connection, String endpoint, Object payload, long firstRecord, int recordCount) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("firstRecord", firstRecord);
+        result.put("recordCount", recordCount);
+
+        try {
+            AutomationResponse response = connection.post(endpoint, payload, AutomationResponse.class);
+            result.put("status", "SUCCESS");
+            result.put("requestId", response != null ? response.getRequestId() : null);
+        } catch (Exception e) {
+            // every request sent gets its failure record; errors propagate and fail the run on the count check
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            result.put("status", "FAILED");
+            result.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        return result;
+    }
+
+    private static void write(OutputStream results, Map<String, Object> result) throws IOException {
+        synchronized (results) {
+            FileSerde.write(results, result);
+        }
+    }
+
+    private static void throwIfFailed(AtomicReference<IOException> writeFailure) throws IOException {
+        IOException e = writeFailure.get();
+        if (e != null) {
+            throw new IOException("Unable to write the automation results: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Renders the inline payloads, checking that each one is an object.
+     */
+    private List<Map<String, Object>> renderPayloads(RunContext runContext) throws Exception {
+        List<Map<String, Object>> rendered = new ArrayList<>();
+        for (Object payload : runContext.render(payloads).asList(Object.class)) {
+            if (!(payload instanceof Map<?, ?> map)) {
+                throw new IllegalArgumentException("Each payload must be an object, got: " + payload);
+            }
+            Map<String, Object> record = new LinkedHashMap<>();
+            map.forEach((key, value) -> record.put(String.valueOf(key), value));
+            rendered.add(record);
+        }
+        return rendered;
+    }
+
+    /**
+     * Reads inline payloads as records.
+     */
+    private static class ListRecordReader implements RecordReader {
+        private final Iterator<Map<String, Object>> iterator;
+
+        ListRecordReader(List<Map<String, Object>> records) {
+            this.iterator = records.iterator();
+        }
+
+        @Override
+        public Map<String, Object> next() {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "URI of the results file",
+            description = "One record per request, with the index of its first record, its number of records, " +
+                "its status and the Coda request ID or the error message."
+        )
+        private final URI uri;
+
+        @Schema(
+            title = "Number of requests sent"
+        )
+        private final Long requests;
+
+        @Schema(
+            title = "Number of requests that succeeded"
+        )
+        private final Long successes;
+
+        @Schema(
+            title = "Number of requests that failed"
+        )
+        private final Long failures;
+    }
+}
@@ -0,0 +1,148 @@
+package io.kestra.plugin.coda.client;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive-increase, multiplicative-decrease controller of the number of rows per write batch and of the number of
+ * batches in flight.
+ * <p>
+ * Each batch acknowledged within the target latency adds a fixed step to the batch size, and each round of such
+ * batches adds one batch in flight. A slow batch cuts the batch size by the backoff factor; a rate-limited or failed
+ * one cuts both. The batch size is also capped by the payload limit, from the observed bytes per row, so wide rows get
+ * smaller batches. The controller thus probes for the largest batches the API currently serves well, and retreats
+ * fast when it does not.
+ */
+public class AdaptiveBatchController {
+    private static final double BYTES_PER_ROW_WEIGHT = 0.2;
+
+    private final AdaptiveBatchingConfig config;
+    private final long targetLatencyNanos;
+
+    private int batchSize;
+    private int concurrency = 1;
+    private int inFlight;
+    private int healthyStreak;
+    private double bytesPerRow;
+    private int largestBatchSize;
+    private long backoffs;
+
+    /**
+     * @param config The bounds and steps of the tuning
+     * @param initialBatchSize The batch size to start from, brought within the bounds
+     */
+    public AdaptiveBatchController(AdaptiveBatchingConfig config, int initialBatchSize) {
+        this.config = config;
+        this.targetLatencyNanos = config.getTargetLatency().toNanos();
+        this.batchSize = clamp(initialBatchSize);
+    }
+
+    /**
+     * @return The number of rows of the next batch, within the payload limit
+     */
+    public synchronized int getBatchSize() {
+        if (bytesPerRow <= 0) {
+            return batchSize;
+        }
+        return Math.max(config.getMinBatchSize(), Math.min(batchSize, (int) (config.getMaxPayloadBytes() / bytesPerRow)));
+    }
+
+    /**
+     * @return The number of batches allowed in flight
+     */
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return The largest batch size reached
+     */
+    public synchronized int getLargestBatchSize() {
+        return largestBatchSize;
+    }
+
+    /**
+     * @return The number of times the batch size or concurrency was cut
+     */
+    public synchronized long getBackoffs() {
+        return backoffs;
+    }
+
+    /**
+     * Waits until a batch can be sent without exceeding the concurrency.
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= concurrency) {
+            wait();
+        }
+        inFlight++;
+        largestBatchSize = Math.max(largestBatchSize, getBatchSize());
+    }
+
+    synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Records a batch acknowledged by the API.
+     *
+     * @param rows The number of rows of the batch
+     * @param bytes The size of the request body
+     * @param latencyNanos The time until the batch was acknowledged, including retries
+     * @param rateLimited Whether the API answered 429 while the batch was in flight
+     */
+    synchronized void succeeded(int rows, long bytes, long latencyNanos, boolean rateLimited) {
+        double observed = (double) bytes / rows;
+        bytesPerRow = bytesPerRow <= 0 ? observed : bytesPerRow + BYTES_PER_ROW_WEIGHT * (observed - bytesPerRow);
+
+        if (rateLimited) {
+            backOff(true);
+        } else if (latencyNanos > targetLatencyNanos) {
+            backOff(false);
+        } else {
+            batchSize = clamp(batchSize + config.getIncrement());
+            // one more batch in flight per round of healthy batches, so concurrency grows by one per round trip
+            if (++healthyStreak >= concurrency) {
+                healthyStreak = 0;
+                concurrency = Math.min(config.getMaxConcurrency(), concurrency + 1);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Records a batch rejected for its size, before it is split.
+     */
+    synchronized void tooLarge(int rows) {
+        batchSize = clamp(Math.min(batchSize, rows));
+        backOff(false);
+    }
+
+    /**
+     * Records a batch that failed, was rate limited until retries ran out or timed out.
+     */
+    synchronized void failed() {
+        backOff(true);
+    }
+
+    private void backOff(boolean concurrencyToo) {
+        batchSize = clamp((int) (batchSize * config.getBackoffFactor()));
+        if (concurrencyToo) {
+            concurrency = Math.max(1, (int) (concurrency * config.getBackoffFactor()));
+        }
+        healthyStreak = 0;
+        backoffs++;
+    }
+
+    private int clamp(int size) {
+        return Math.max(config.getMinBatchSize(), Math.min(config.getMaxBatchSize(), size));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+            "batch size %d (largest %d), concurrency %d, %.0f bytes per row, %d backoffs, target %dms",
+            getBatchSize(), largestBatchSize, concurrency, bytesPerRow, backoffs, TimeUnit.NANOSECONDS.toMillis(targetLatencyNanos)
+        );
+    }
+}
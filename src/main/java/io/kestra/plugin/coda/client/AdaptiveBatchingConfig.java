@@ -0,0 +1,66 @@
+package io.kestra.plugin.coda.client;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Duration;
+
+/**
+ * Bounds and steps of the adaptive tuning of write batches.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class AdaptiveBatchingConfig {
+    @Schema(
+        title = "Minimum batch size",
+        description = "The batch size is never cut below this number of rows."
+    )
+    @Builder.Default
+    private Integer minBatchSize = 10;
+
+    @Schema(
+        title = "Maximum batch size",
+        description = "The batch size never grows over this number of rows."
+    )
+    @Builder.Default
+    private Integer maxBatchSize = 1000;
+
+    @Schema(
+        title = "Maximum payload size",
+        description = "The batch size is capped so that the estimated request body stays under this number of bytes, " +
+            "below the request size limit of the API."
+    )
+    @Builder.Default
+    private Integer maxPayloadBytes = 1_500_000;
+
+    @Schema(
+        title = "Target latency",
+        description = "Batches acknowledged within this time let the batch size and concurrency grow; slower ones shrink the batch size."
+    )
+    @Builder.Default
+    private Duration targetLatency = Duration.ofSeconds(2);
+
+    @Schema(
+        title = "Maximum concurrency",
+        description = "The number of batches in flight never grows over this."
+    )
+    @Builder.Default
+    private Integer maxConcurrency = 4;
+
+    @Schema(
+        title = "Batch size increment",
+        description = "The number of rows added to the batch size after each healthy batch."
+    )
+    @Builder.Default
+    private Integer increment = 25;
+
+    @Schema(
+        title = "Backoff factor",
+        description = "The factor applied to the batch size, and to the concurrency on rate limiting, when the API is under pressure."
+    )
+    @Builder.Default
+    private Double backoffFactor = 0.5;
+}
@@ -0,0 +1,55 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaBulkheadFullException;
+import io.kestra.plugin.coda.exceptions.CodaException;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of concurrent in-flight calls, so that a slow dependency cannot hold every worker thread.
+ */
+public class Bulkhead {
+    private final String name;
+    private final Semaphore permits;
+
+    public Bulkhead(String name, int maxConcurrentCalls) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+    }
+
+    /**
+     * Waits for a free slot.
+     *
+     * @param maxWait The maximum time to wait
+     * @throws CodaException if no slot became free in time, or if the thread was interrupted
+     */
+    public void acquire(Duration maxWait) throws CodaException {
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new CodaBulkheadFullException(String.format(
+                    "Too many concurrent calls to %s, no slot became available within %ds",
+                    name,
+                    maxWait.toSeconds()
+                ));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodaException("Interrupted while waiting for a free slot for " + name, e);
+        }
+    }
+
+    /**
+     * Takes a free slot if there is one, without waiting.
+     *
+     * @return Whether a slot was taken
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
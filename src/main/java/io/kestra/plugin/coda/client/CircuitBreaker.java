@@ -0,0 +1,210 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaCircuitOpenException;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * While closed, the outcome of the last {@code slidingWindowSize} calls is recorded and the circuit opens when the
+ * failure rate or the slow call rate reaches its threshold. While open, calls are rejected with a
+ * {@link CodaCircuitOpenException} until {@code openDuration} has elapsed. The circuit then becomes half-open and lets
+ * {@code halfOpenCalls} probe calls through one at a time, rejecting the other calls while a probe is in flight: it
+ * closes if they all succeed and opens again as soon as one fails, so a document that is still down gets one call.
+ * Each probe gets its own permit, and only the outcome of the call holding it counts: a call started before the circuit
+ * opened that completes while it is half-open is ignored.
+ */
+public class CircuitBreaker {
+    /**
+     * The permit of the calls that are not probes.
+     */
+    public static final long NOT_A_PROBE = 0;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final LongSupplier nanoClock;
+
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int position = 0;
+    private int recorded = 0;
+    private int failureCount = 0;
+    private int slowCount = 0;
+
+    @Getter
+    private State state = State.CLOSED;
+    private long openedAt;
+    // the permit of the probe in flight, if any
+    private long probe = NOT_A_PROBE;
+    private long lastProbe = NOT_A_PROBE;
+    private int probeSuccesses = 0;
+
+    public CircuitBreaker(String name, CircuitBreakerConfig config) {
+        this(name, config, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, LongSupplier nanoClock) {
+        // the config is rendered from a dynamic property, so its constraints are not validated with the flow
+        checkAtLeastOne("slidingWindowSize", config.getSlidingWindowSize());
+        checkAtLeastOne("minimumCalls", config.getMinimumCalls());
+        checkAtLeastOne("halfOpenCalls", config.getHalfOpenCalls());
+        checkRate("failureRateThreshold", config.getFailureRateThreshold());
+        checkRate("slowCallRateThreshold", config.getSlowCallRateThreshold());
+
+        this.name = name;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.failures = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * Fails fast if the circuit is open, without consuming a probe call when it is half-open.
+     *
+     * @throws CodaCircuitOpenException if the circuit is open
+     */
+    public synchronized void checkNotOpen() throws CodaCircuitOpenException {
+        if (state == State.OPEN && !openDurationElapsed()) {
+            throw openException();
+        }
+    }
+
+    private static void checkAtLeastOne(String property, int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("The circuit breaker '" + property + "' must be at least 1, got " + value);
+        }
+    }
+
+    private static void checkRate(String property, double value) {
+        if (!(value > 0 && value <= 1)) {
+            throw new IllegalArgumentException("The circuit breaker '" + property + "' must be greater than 0 and at most 1, got " + value);
+        }
+    }
+
+    /**
+     * Acquires the permission to make a call. Every successful acquisition must be followed by
+     * {@link #onSuccess(long, long)} or {@link #onFailure(long, long)} with the permit returned.
+     *
+     * @return The permit of the call, unique to it if it is a probe and {@link #NOT_A_PROBE} otherwise
+     * @throws CodaCircuitOpenException if the circuit is open, or half-open with a probe call in flight
+     */
+    public synchronized long acquirePermission() throws CodaCircuitOpenException {
+        if (state == State.OPEN) {
+            if (!openDurationElapsed()) {
+                throw openException();
+            }
+            state = State.HALF_OPEN;
+            probe = NOT_A_PROBE;
+            probeSuccesses = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probe != NOT_A_PROBE) {
+                throw new CodaCircuitOpenException("Circuit breaker for " + name + " is half-open and waiting for a probe call to complete");
+            }
+            probe = ++lastProbe;
+            return probe;
+        }
+        return NOT_A_PROBE;
+    }
+
+    /**
+     * Records a call that got a response from the API.
+     *
+     * @param durationNanos The duration of the call
+     * @param permit The permit returned by {@link #acquirePermission()} for the call
+     */
+    public synchronized void onSuccess(long durationNanos, long permit) {
+        record(false, durationNanos, permit);
+    }
+
+    /**
+     * Records a call that failed with a network error or a server error.
+     *
+     * @param durationNanos The duration of the call
+     * @param permit The permit returned by {@link #acquirePermission()} for the call
+     */
+    public synchronized void onFailure(long durationNanos, long permit) {
+        record(true, durationNanos, permit);
+    }
+
+    private void record(boolean failure, long durationNanos, long permit) {
+        boolean slow = durationNanos >= config.getSlowCallDuration().toNanos();
+
+        switch (state) {
+            case HALF_OPEN -> {
+                if (permit == NOT_A_PROBE || permit != probe) {
+                    // a call started before the circuit opened tells nothing about the document now
+                    return;
+                }
+                probe = NOT_A_PROBE;
+                if (failure || slow) {
+                    open();
+                } else if (++probeSuccesses >= config.getHalfOpenCalls()) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (recorded == failures.length) {
+                    failureCount -= failures[position] ? 1 : 0;
+                    slowCount -= slowCalls[position] ? 1 : 0;
+                } else {
+                    recorded++;
+                }
+
+                failures[position] = failure;
+                slowCalls[position] = slow;
+                failureCount += failure ? 1 : 0;
+                slowCount += slow ? 1 : 0;
+                position = (position + 1) % failures.length;
+
+                if (recorded >= config.getMinimumCalls()
+                    && ((double) failureCount / recorded >= config.getFailureRateThreshold()
+                    || (double) slowCount / recorded >= config.getSlowCallRateThreshold())) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // calls started before the circuit opened do not change its state
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        position = 0;
+        recorded = 0;
+        failureCount = 0;
+        slowCount = 0;
+        Arrays.fill(failures, false);
+        Arrays.fill(slowCalls, false);
+    }
+
+    private boolean openDurationElapsed() {
+        return nanoClock.getAsLong() - openedAt >= config.getOpenDuration().toNanos();
+    }
+
+    private CodaCircuitOpenException openException() {
+        Duration remaining = Duration.ofNanos(config.getOpenDuration().toNanos() - (nanoClock.getAsLong() - openedAt));
+        return new CodaCircuitOpenException(String.format(
+            "Circuit breaker for %s is open after too many failed or slow calls, retry in %ds",
+            name,
+            Math.max(1, remaining.toSeconds())
+        ));
+    }
+}
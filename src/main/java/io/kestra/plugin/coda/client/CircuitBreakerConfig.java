@@ -0,0 +1,76 @@
+package io.kestra.plugin.coda.client;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Duration;
+
+/**
+ * Thresholds of the circuit breaker guarding the calls to a Coda document.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class CircuitBreakerConfig {
+    @Schema(
+        title = "Failure rate threshold",
+        description = "The fraction of failed calls (network errors and HTTP 5xx) in the sliding window above which the circuit opens."
+    )
+    @DecimalMin(value = "0", inclusive = false)
+    @DecimalMax("1")
+    @Builder.Default
+    private Double failureRateThreshold = 0.5;
+
+    @Schema(
+        title = "Slow call duration",
+        description = "Calls taking longer than this are counted as slow."
+    )
+    @Builder.Default
+    private Duration slowCallDuration = Duration.ofSeconds(20);
+
+    @Schema(
+        title = "Slow call rate threshold",
+        description = "The fraction of slow calls in the sliding window above which the circuit opens."
+    )
+    @DecimalMin(value = "0", inclusive = false)
+    @DecimalMax("1")
+    @Builder.Default
+    private Double slowCallRateThreshold = 0.8;
+
+    @Schema(
+        title = "Sliding window size",
+        description = "The number of most recent calls the failure and slow call rates are computed on."
+    )
+    @Min(1)
+    @Builder.Default
+    private Integer slidingWindowSize = 20;
+
+    @Schema(
+        title = "Minimum number of calls",
+        description = "The circuit cannot open before this number of calls has been recorded."
+    )
+    @Min(1)
+    @Builder.Default
+    private Integer minimumCalls = 10;
+
+    @Schema(
+        title = "Open duration",
+        description = "How long the circuit stays open, failing calls fast, before letting probe calls through."
+    )
+    @Builder.Default
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    @Schema(
+        title = "Half-open probe calls",
+        description = "The number of probe calls made when the circuit is half-open, one at a time while the other calls are " +
+            "rejected. The circuit closes when they all succeed."
+    )
+    @Min(1)
+    @Builder.Default
+    private Integer halfOpenCalls = 2;
+}
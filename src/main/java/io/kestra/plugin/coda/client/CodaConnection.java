@@ -1,24 +1,38 @@
 package io.kestra.plugin.coda.client;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import io.kestra.plugin.coda.exceptions.*;
 import okhttp3.*;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages HTTP connections and communication with the Coda API.
  */
 public class CodaConnection {
-    private static final String BASE_URL = "https://coda.io/apis/v1";
+    public static final String DEFAULT_BASE_URL = "https://coda.io/apis/v1";
     private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json; charset=utf-8");
+    private static final int MAX_RATE_LIMIT_RETRIES = 5;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration WRITE_TIMEOUT = Duration.ofSeconds(60);
 
+    private final String baseUrl;
+    private final TokenPool tokens;
+    private final CodaConnectionOptions options;
     private final OkHttpClient client;
-    private final ObjectMapper objectMapper;
     private final Logger logger;
+    private final AtomicLong rateLimitedResponses = new AtomicLong();
 
     /**
      * Creates a new Coda API connection.
@@ -27,18 +41,73 @@ public class CodaConnection {
      * @param logger Logger instance for logging
      */
     public CodaConnection(String apiToken, Logger logger) {
+        this(apiToken, DEFAULT_BASE_URL, logger);
+    }
+
+    /**
+     * Creates a new Coda API connection to a specific API endpoint, such as a proxy or a local simulator.
+     *
+     * @param apiToken The Coda API token for authentication
+     * @param baseUrl The base URL of the Coda API, without trailing slash
+     * @param logger Logger instance for logging
+     */
+    public CodaConnection(String apiToken, String baseUrl, Logger logger) {
+        this(apiToken, baseUrl, CodaConnectionOptions.defaults(), logger);
+    }
+
+    /**
+     * Creates a new Coda API connection with specific tuning options.
+     *
+     * @param apiToken The Coda API token for authentication
+     * @param baseUrl The base URL of the Coda API, without trailing slash
+     * @param options The circuit breaker and concurrency options
+     * @param logger Logger instance for logging
+     */
+    public CodaConnection(String apiToken, String baseUrl, CodaConnectionOptions options, Logger logger) {
+        this(List.of(apiToken), baseUrl, options, logger);
+    }
+
+    /**
+     * Creates a new Coda API connection spreading its calls over several tokens, each call using the token with the
+     * most rate limit budget left.
+     *
+     * @param apiTokens The Coda API tokens for authentication
+     * @param baseUrl The base URL of the Coda API, without trailing slash
+     * @param options The circuit breaker and concurrency options
+     * @param logger Logger instance for logging
+     */
+    public CodaConnection(List<String> apiTokens, String baseUrl, CodaConnectionOptions options, Logger logger) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.tokens = TokenPool.of(this.baseUrl, apiTokens);
+        this.options = options;
         this.logger = logger;
-        this.objectMapper = new ObjectMapper()
-            .enable(SerializationFeature.INDENT_OUTPUT);
+        // once per process, while the first calls of the task resolve the models they need
+        CodaJson.warmUpInBackground();
 
         this.client = new OkHttpClient.Builder()
-            .addInterceptor(new AuthInterceptor(apiToken))
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(60, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
+            .addInterceptor(new AuthInterceptor(HttpUrl.get(this.baseUrl)))
+            .connectTimeout(CONNECT_TIMEOUT)
+            .readTimeout(READ_TIMEOUT)
+            .writeTimeout(WRITE_TIMEOUT)
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .dispatcher(dispatcher())
             .build();
     }
 
+    /**
+     * @return A key identifying the API and the tokens of this connection, without revealing the tokens
+     */
+    public String getScope() {
+        return tokens.getFingerprint() + "@" + baseUrl;
+    }
+
+    /**
+     * @return The number of 429 responses received by the connection, including those of retried requests
+     */
+    public long getRateLimitedResponses() {
+        return rateLimitedResponses.get();
+    }
+
     /**
      * Executes a GET request to the Coda API.
      *
@@ -57,6 +126,31 @@ public class CodaConnection {
         return executeRequest(request, responseType);
     }
 
+    /**
+     * Executes a GET request to the Coda API for a generic response type, such as a {@code PagedResponse<CodaRow>}.
+     *
+     * @param endpoint The API endpoint (relative to base URL)
+     * @param responseType The type reference to deserialize the response to
+     * @return The deserialized response
+     * @throws CodaException if the request fails
+     */
+    public <T> T get(String endpoint, TypeReference<T> responseType) throws CodaException {
+        return get(endpoint, responseType, null);
+    }
+
+    /**
+     * Executes a GET request for one page of a listing, recording the page number in the trace of the call.
+     */
+    <T> T get(String endpoint, TypeReference<T> responseType, Integer page) throws CodaException {
+        String url = buildUrl(endpoint);
+        Request request = new Request.Builder()
+            .url(url)
+            .get()
+            .build();
+
+        return executeRequest(request, CodaJson.type(responseType), page);
+    }
+
     /**
      * Executes a POST request to the Coda API.
      *
@@ -67,23 +161,30 @@ public class CodaConnection {
      * @throws CodaException if the request fails
      */
     public <T> T post(String endpoint, Object requestBody, Class<T> responseType) throws CodaException {
-        String url = buildUrl(endpoint);
-        String json;
+        byte[] json;
         try {
-            json = objectMapper.writeValueAsString(requestBody);
+            json = CodaJson.writer().writeValueAsBytes(requestBody);
         } catch (Exception e) {
             throw new CodaException("Failed to serialize request body: " + e.getMessage(), e);
         }
 
-        logger.debug("POST {} with body: {}", url, json);
+        return post(endpoint, json, responseType, null);
+    }
 
+    /**
+     * Executes a POST request with a body already serialized, for callers that need its size.
+     *
+     * @param callRateLimits Counts the 429 responses received by this request only, including those of retried attempts
+     */
+    <T> T post(String endpoint, byte[] json, Class<T> responseType, AtomicInteger callRateLimits) throws CodaException {
+        String url = buildUrl(endpoint);
         RequestBody body = RequestBody.create(json, JSON_MEDIA_TYPE);
         Request request = new Request.Builder()
             .url(url)
             .post(body)
             .build();
 
-        return executeRequest(request, responseType);
+        return executeRequest(request, CodaJson.type(responseType), null, callRateLimits);
     }
 
     /**
@@ -99,13 +200,11 @@ public class CodaConnection {
         String url = buildUrl(endpoint);
         String json;
         try {
-            json = objectMapper.writeValueAsString(requestBody);
+            json = CodaJson.writer().writeValueAsString(requestBody);
         } catch (Exception e) {
             throw new CodaException("Failed to serialize request body: " + e.getMessage(), e);
         }
 
-        logger.debug("PUT {} with body: {}", url, json);
-
         RequestBody body = RequestBody.create(json, JSON_MEDIA_TYPE);
         Request request = new Request.Builder()
             .url(url)
@@ -133,30 +232,350 @@ public class CodaConnection {
         return executeRequest(request, responseType);
     }
 
+    /**
+     * Downloads a file, such as an export, from a URL given by the API, and streams its body to a handler without
+     * buffering it. The URL usually belongs to another host, which never gets the API token.
+     *
+     * @param url The absolute URL of the file
+     * @param handler The consumer of the body, called while the response is open
+     * @return The result of the handler
+     * @throws CodaException if the download fails or the handler fails to read the body
+     */
+    public <T> T download(String url, BodyHandler<T> handler) throws CodaException {
+        Request request = new Request.Builder()
+            .url(url)
+            .get()
+            .build();
+
+        // the path of a download link is unique, so it is not used as the name of the span
+        RequestTrace trace = new RequestTrace(request, "download", null, 0, 0, options.getPayloadCapture());
+        try (Response response = newCall(request).execute()) {
+            ResponseBody body = response.body();
+            trace.response(response.code(), body != null ? body.contentLength() : -1);
+
+            if (!response.isSuccessful() || body == null) {
+                throw new CodaException("Download failed with status " + response.code(), response.code());
+            }
+
+            logger.debug("Downloading {} bytes from {}", body.contentLength(), request.url().host());
+            T result = handler.handle(body.byteStream(), body.contentLength());
+            trace.end(null);
+            return result;
+        } catch (InterruptedIOException e) {
+            CodaException exception = timeoutException(e);
+            trace.end(exception);
+            throw exception;
+        } catch (IOException e) {
+            CodaException exception = new CodaException("Failed to download file: " + e.getMessage(), e);
+            trace.end(exception);
+            throw exception;
+        } catch (CodaException | RuntimeException e) {
+            trace.end(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Consumer of the body of a downloaded file.
+     */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        /**
+         * @param body The body, closed once the handler returns
+         * @param contentLength The length of the body, or -1 if unknown
+         */
+        T handle(InputStream body, long contentLength) throws IOException;
+    }
+
     /**
      * Executes an HTTP request and handles the response.
      */
     private <T> T executeRequest(Request request, Class<T> responseType) throws CodaException {
-        try (Response response = client.newCall(request).execute()) {
-            String responseBody = response.body() != null ? response.body().string() : "";
+        if (responseType == Void.class) {
+            executeRequest(request, null, null);
+            return null;
+        }
+
+        return executeRequest(request, CodaJson.type(responseType), null);
+    }
+
+    /**
+     * Executes an HTTP request and deserializes the response to the given type, or discards it when the type is null.
+     * Each attempt is sent with the token of the pool with the most budget left. A rate-limited token sits out for the
+     * delay given by the Retry-After header, or an exponential backoff when the header is missing, and the request is
+     * retried with another token, or with the same one once its delay is over. A rejected token is taken out of
+     * rotation and the request retried with another token, if any.
+     * Every attempt is traced, with the time it waited on the rate limiter before being sent.
+     */
+    private <T> T executeRequest(Request request, JavaType responseType, Integer page) throws CodaException {
+        return executeRequest(request, responseType, page, null);
+    }
+
+    /**
+     * Executes an HTTP request as above, also counting its 429 responses in the given counter when it is not null.
+     */
+    private <T> T executeRequest(Request request, JavaType responseType, Integer page, AtomicInteger callRateLimits) throws CodaException {
+        int maxRateLimitRetries = MAX_RATE_LIMIT_RETRIES * tokens.size();
+        int attempt = 0;
+        int rateLimited = 0;
+        CodaRateLimitException lastRateLimit = null;
+        while (true) {
+            TokenPool.Token token = tokens.acquire();
+            long rateLimitWaitNanos = token.waitNanos(System.nanoTime());
+            if (rateLimitWaitNanos > 0) {
+                Duration remaining = remainingTime();
+                if (remaining != null && remaining.toNanos() <= rateLimitWaitNanos) {
+                    throw new CodaDeadlineExceededException("Task deadline would be exceeded while waiting to retry a rate-limited request", lastRateLimit);
+                }
+                sleep(rateLimitWaitNanos);
+            }
+
+            Request authenticated = request.newBuilder().tag(TokenPool.Token.class, token).build();
+            RequestTrace trace = new RequestTrace(authenticated, page, attempt, rateLimitWaitNanos, options.getPayloadCapture());
+            try {
+                T result = executeGuarded(authenticated, responseType, trace);
+                token.succeeded();
+                trace.end(null);
+                return result;
+            } catch (CodaRateLimitException e) {
+                trace.end(e);
+                rateLimitedResponses.incrementAndGet();
+                if (callRateLimits != null) {
+                    callRateLimits.incrementAndGet();
+                }
+
+                if (rateLimited >= maxRateLimitRetries) {
+                    throw e;
+                }
+
+                long delay = token.rateLimited(e.getRetryAfterSeconds());
+                lastRateLimit = e;
+                rateLimited++;
+                attempt++;
 
-            logger.debug("Response code: {}", response.code());
-            logger.debug("Response body: {}", responseBody);
+                logger.warn("Rate limited on {} {} with token {}, resting it for {}ms (attempt {}/{})",
+                    request.method(), request.url(), token.getFingerprint(), TimeUnit.NANOSECONDS.toMillis(delay),
+                    rateLimited, maxRateLimitRetries);
+            } catch (CodaAuthenticationException e) {
+                trace.end(e);
 
-            if (!response.isSuccessful()) {
-                handleErrorResponse(response, responseBody);
+                if (!tokens.revoke(token)) {
+                    throw e;
+                }
+                attempt++;
+
+                logger.warn("Token {} was rejected on {} {}, retrying with another token of the pool",
+                    token.getFingerprint(), request.method(), request.url());
+            } catch (CodaException | RuntimeException e) {
+                trace.end(e);
+                throw e;
             }
+        }
+    }
+
+    private void sleep(long nanos) throws CodaException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodaException("Interrupted while waiting to retry", e);
+        }
+    }
 
-            if (responseType == Void.class || responseBody.isEmpty()) {
-                return null;
+    /**
+     * Executes a request through the circuit breaker and bulkhead of the document it targets.
+     * Only network errors and server errors count as failures: any other response proves the API is reachable.
+     */
+    private <T> T executeGuarded(Request request, JavaType responseType, RequestTrace trace) throws CodaException {
+        DocumentGuard guard = guardFor(request.url());
+        Duration remaining = remainingTime();
+        if (options.getRateBudget() != null) {
+            trace.rateLimitWait(options.getRateBudget().acquire(remaining));
+        }
+
+        long waitStart = System.nanoTime();
+        long permit = remaining != null ? guard.acquire(remaining) : guard.acquire();
+        trace.bulkheadWait(System.nanoTime() - waitStart);
+
+        long start = System.nanoTime();
+        boolean failure = true;
+        try {
+            T result = "GET".equals(request.method()) && options.getHedging() != null
+                ? executeHedged(request, responseType, guard, trace)
+                : executeOnce(request, responseType, trace);
+            failure = false;
+            return result;
+        } catch (CodaException e) {
+            failure = !(e instanceof CodaDeadlineExceededException)
+                && (e.getStatusCode() == null || e.getStatusCode() >= 500);
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            if (!failure && "GET".equals(request.method())) {
+                guard.getReadLatencies().record(duration);
             }
+            guard.release(permit, failure, duration);
+        }
+    }
 
-            return objectMapper.readValue(responseBody, responseType);
+    /**
+     * Returns the guard of the document targeted by a URL. Calls outside of a document,
+     * such as webhooks or mutation status, share one guard per set of tokens.
+     */
+    private DocumentGuard guardFor(HttpUrl url) {
+        List<String> segments = url.pathSegments();
+        int docs = segments.indexOf("docs");
+        String docId = docs >= 0 && docs + 1 < segments.size() ? segments.get(docs + 1) : null;
+
+        String name = docId != null ? "document " + docId : url.host();
+        return DocumentGuard.of(tokens.getFingerprint() + "/" + url.host() + ":" + url.port() + "/" + (docId != null ? docId : ""), name, options);
+    }
+
+    private <T> T executeOnce(Request request, JavaType responseType, RequestTrace trace) throws CodaException {
+        try (Response response = newCall(request).execute()) {
+            return readResponse(response, responseType, trace);
+        } catch (InterruptedIOException e) {
+            throw timeoutException(e);
         } catch (IOException e) {
             throw new CodaException("Failed to execute request: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Sends an idempotent request and, if it has not answered within the configured percentile of the recent read
+     * latencies, sends it a second time and keeps whichever response comes first. The slower call is cancelled.
+     * Until enough latencies have been observed, the request is sent once.
+     * The second request takes a bulkhead slot of its own, until the first response; when no slot is free, it is not
+     * sent, so hedging never takes the document over its concurrency limit.
+     */
+    private <T> T executeHedged(Request request, JavaType responseType, DocumentGuard guard, RequestTrace trace) throws CodaException {
+        HedgingConfig hedging = options.getHedging();
+        LatencyTracker latencies = guard.getReadLatencies();
+        if (latencies.count() < hedging.getMinSamples()) {
+            return executeOnce(request, responseType, trace);
+        }
+
+        long hedgeDelay = Math.max(latencies.percentile(hedging.getPercentile()), hedging.getMinDelay().toNanos());
+        HedgedCall hedgedCall = new HedgedCall();
+        boolean hedgeSlot = false;
+
+        try {
+            hedgedCall.start(newCall(request));
+            Response response = hedgedCall.await(hedgeDelay);
+
+            if (response == null && (hedgeSlot = guard.tryAcquireHedge())) {
+                if (hedgedCall.start(newCall(request))) {
+                    logger.debug("No response from {} after {}ms, sending a hedged request", request.url(), TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+                }
+            } else if (response == null) {
+                logger.debug("No response from {} after {}ms, but no slot is free to hedge it", request.url(), TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+            }
+            if (response == null) {
+                Duration remaining = remainingTime();
+                response = hedgedCall.await(remaining != null ? remaining.toNanos() : -1);
+            }
+            if (response == null) {
+                throw new CodaDeadlineExceededException("Task deadline exceeded while waiting for " + request.url());
+            }
+
+            try (Response body = response) {
+                return readResponse(body, responseType, trace);
+            }
+        } catch (InterruptedIOException e) {
+            throw timeoutException(e);
+        } catch (IOException e) {
+            throw new CodaException("Failed to execute request: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodaException("Interrupted while waiting for " + request.url(), e);
+        } finally {
+            trace.hedged(hedgedCall.size());
+            hedgedCall.cancelOthers();
+            if (hedgeSlot) {
+                guard.releaseHedge();
+            }
+        }
+    }
+
+    /**
+     * Creates a call whose overall timeout is the time left until the deadline, if any. The connect, read and write
+     * timeouts are cut to that time too, so a call close to the deadline does not wait on a socket longer than the
+     * task has left.
+     */
+    private Call newCall(Request request) throws CodaDeadlineExceededException {
+        Duration left = remainingTime();
+        if (left == null) {
+            return client.newCall(request);
+        }
+        // a timeout of zero would mean no timeout at all
+        Duration remaining = left.toMillis() > 0 ? left : Duration.ofMillis(1);
+
+        OkHttpClient bounded = client;
+        if (remaining.compareTo(READ_TIMEOUT) < 0 || remaining.compareTo(WRITE_TIMEOUT) < 0 || remaining.compareTo(CONNECT_TIMEOUT) < 0) {
+            // the derived client shares the connection pool and the dispatcher of the connection
+            bounded = client.newBuilder()
+                .connectTimeout(min(CONNECT_TIMEOUT, remaining))
+                .readTimeout(min(READ_TIMEOUT, remaining))
+                .writeTimeout(min(WRITE_TIMEOUT, remaining))
+                .build();
+        }
+
+        Call call = bounded.newCall(request);
+        call.timeout().timeout(remaining.toMillis(), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    /**
+     * @return The time left until the deadline, or null if there is no deadline
+     * @throws CodaDeadlineExceededException if the deadline has already passed
+     */
+    private Duration remainingTime() throws CodaDeadlineExceededException {
+        if (options.getDeadline() == null) {
+            return null;
+        }
+
+        Duration remaining = Duration.between(Instant.now(), options.getDeadline());
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw new CodaDeadlineExceededException("Task deadline exceeded before the request could be sent");
+        }
+        return remaining;
+    }
+
+    private CodaException timeoutException(InterruptedIOException e) {
+        if (options.getDeadline() != null && !Instant.now().isBefore(options.getDeadline())) {
+            return new CodaDeadlineExceededException("Task deadline exceeded: " + e.getMessage(), e);
+        }
+        return new CodaException("Request timed out: " + e.getMessage(), e);
+    }
+
+    private <T> T readResponse(Response response, JavaType responseType, RequestTrace trace) throws IOException, CodaException {
+        // bytes are parsed directly; the body is only decoded to text, and cut, when it is captured
+        byte[] responseBody = response.body() != null ? response.body().bytes() : new byte[0];
+        trace.response(response.code(), responseBody);
+
+        logger.debug("{} {} returned {} with {} bytes in {}ms",
+            trace.getMethod(), trace.getEndpointTemplate(), response.code(), responseBody.length,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - trace.getStartNanos()));
+        if (trace.isSampled()) {
+            logger.debug("Sampled request body: {}", trace.getRequestPayload());
+            logger.debug("Sampled response body: {}", trace.getResponsePayload());
+        }
+
+        if (!response.isSuccessful()) {
+            handleErrorResponse(response, trace.getResponsePayload());
+        }
+
+        if (responseType == null || responseBody.length == 0) {
+            return null;
+        }
+
+        return CodaJson.reader(responseType).readValue(responseBody);
+    }
+
     /**
      * Handles error responses from the Coda API.
      */
@@ -185,6 +604,17 @@ public class CodaConnection {
         }
     }
 
+    /**
+     * Dispatcher of the asynchronous calls, allowing more concurrent calls per host than the OkHttp default of 5.
+     * Over HTTP/2 these calls are multiplexed on a single connection.
+     */
+    private static Dispatcher dispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(128);
+        dispatcher.setMaxRequestsPerHost(64);
+        return dispatcher;
+    }
+
     /**
      * Builds a full URL from an endpoint.
      */
@@ -194,27 +624,36 @@ public class CodaConnection {
         }
 
         String cleanEndpoint = endpoint.startsWith("/") ? endpoint : "/" + endpoint;
-        return BASE_URL + cleanEndpoint;
+        return baseUrl + cleanEndpoint;
     }
 
     /**
-     * Interceptor that adds authentication header to all requests.
+     * Interceptor that adds the authentication header of the token picked for the attempt to the requests to the API.
+     * Requests to any other origin, such as pagination links or download links, never get the token, even when the
+     * URL was returned by the API.
      */
     private static class AuthInterceptor implements Interceptor {
-        private final String apiToken;
+        private final HttpUrl api;
 
-        public AuthInterceptor(String apiToken) {
-            this.apiToken = apiToken;
+        AuthInterceptor(HttpUrl api) {
+            this.api = api;
         }
 
         @Override
         public Response intercept(Chain chain) throws IOException {
             Request original = chain.request();
-            Request authenticated = original.newBuilder()
-                .header("Authorization", "Bearer " + apiToken)
-                .header("Content-Type", "application/json")
-                .build();
-            return chain.proceed(authenticated);
+            Request.Builder authenticated = original.newBuilder()
+                .header("Content-Type", "application/json");
+
+            TokenPool.Token token = original.tag(TokenPool.Token.class);
+            if (token != null && isApi(original.url())) {
+                authenticated.header("Authorization", "Bearer " + token.getValue());
+            }
+            return chain.proceed(authenticated.build());
+        }
+
+        private boolean isApi(HttpUrl url) {
+            return url.scheme().equals(api.scheme()) && url.host().equals(api.host()) && url.port() == api.port();
         }
     }
 }
@@ -0,0 +1,59 @@
+package io.kestra.plugin.coda.client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Tuning options of a {@link CodaConnection}. The defaults suit most workloads.
+ */
+@Builder
+@Getter
+public class CodaConnectionOptions {
+    /**
+     * Thresholds of the circuit breaker shared by all the calls made with a token to a document.
+     */
+    @Builder.Default
+    private final CircuitBreakerConfig circuitBreaker = CircuitBreakerConfig.builder().build();
+
+    /**
+     * Maximum number of concurrent in-flight calls made with a token to a document, across the whole worker.
+     */
+    @Builder.Default
+    private final int maxConcurrentRequestsPerDoc = 8;
+
+    /**
+     * Maximum time to wait for a free in-flight slot before failing.
+     */
+    @Builder.Default
+    private final Duration maxBulkheadWait = Duration.ofSeconds(60);
+
+    /**
+     * Hedging of idempotent reads, or null to disable it.
+     */
+    private final HedgingConfig hedging;
+
+    /**
+     * Overall deadline of the calls made with the connection, or null for none. Every call is given the time left
+     * until the deadline as its timeout.
+     */
+    private final Instant deadline;
+
+    /**
+     * Sampling and size cap of the request and response bodies captured in traces and debug logs.
+     */
+    @Builder.Default
+    private final PayloadCaptureConfig payloadCapture = PayloadCaptureConfig.builder().build();
+
+    /**
+     * Request rate budget shared with other connections, or null for none. Every attempt takes one request from it
+     * before it is sent.
+     */
+    private final RateBudget rateBudget;
+
+    public static CodaConnectionOptions defaults() {
+        return CodaConnectionOptions.builder().build();
+    }
+}
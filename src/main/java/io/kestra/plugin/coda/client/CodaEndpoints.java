@@ -0,0 +1,90 @@
+package io.kestra.plugin.coda.client;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Builds relative Coda API endpoints with properly encoded path segments and query parameters.
+ */
+public final class CodaEndpoints {
+    private CodaEndpoints() {
+    }
+
+    public static String docs() {
+        return "/docs";
+    }
+
+    public static String tables(String docId) {
+        return "/docs/" + encode(docId) + "/tables";
+    }
+
+    public static String table(String docId, String tableId) {
+        return tables(docId) + "/" + encode(tableId);
+    }
+
+    public static String columns(String docId, String tableId) {
+        return table(docId, tableId) + "/columns";
+    }
+
+    public static String rows(String docId, String tableId) {
+        return table(docId, tableId) + "/rows";
+    }
+
+    public static String row(String docId, String tableId, String rowId) {
+        return rows(docId, tableId) + "/" + encode(rowId);
+    }
+
+    public static String pages(String docId) {
+        return "/docs/" + encode(docId) + "/pages";
+    }
+
+    public static String pageExport(String docId, String pageId) {
+        return pages(docId) + "/" + encode(pageId) + "/export";
+    }
+
+    public static String pageExportStatus(String docId, String pageId, String requestId) {
+        return pageExport(docId, pageId) + "/" + encode(requestId);
+    }
+
+    public static String automation(String docId, String ruleId) {
+        return "/docs/" + encode(docId) + "/hooks/automation/" + encode(ruleId);
+    }
+
+    public static String mutationStatus(String requestId) {
+        return "/mutationStatus/" + encode(requestId);
+    }
+
+    /**
+     * Appends query parameters to an endpoint, skipping null values.
+     *
+     * @param endpoint The endpoint, which may already contain a query string
+     * @param parameters The query parameters to append
+     * @return The endpoint with the query parameters appended
+     */
+    public static String withQuery(String endpoint, Map<String, ?> parameters) {
+        StringBuilder builder = new StringBuilder(endpoint);
+        char separator = endpoint.contains("?") ? '&' : '?';
+
+        for (Map.Entry<String, ?> parameter : parameters.entrySet()) {
+            if (parameter.getValue() == null) {
+                continue;
+            }
+
+            builder.append(separator)
+                .append(encode(parameter.getKey()))
+                .append('=')
+                .append(encode(String.valueOf(parameter.getValue())));
+            separator = '&';
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Encodes a path segment or query value. Spaces are encoded as {@code %20} so the result is valid in both places.
+     */
+    public static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,134 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.kestra.plugin.coda.models.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JSON mapper of the Coda API models, shared by every connection of the worker.
+ * <p>
+ * Jackson introspects a type, including the Lombok builder of a model, the first time a mapper reads or writes it, and
+ * caches the result in the mapper. A mapper per connection thus paid that cost again in every task. The readers and
+ * writers of the API models are resolved once here, so only the first task of the worker pays for them.
+ * <p>
+ * The first {@link CodaConnection} created in the process calls {@link #warmUpInBackground()}, which resolves them in a
+ * short-lived daemon thread while that task makes its first calls. It is not started when the plugin classes are
+ * loaded, so processes that only load them, to validate flows or document the plugin, never start it.
+ * <p>
+ * Setting the system property {@value #BLACKBIRD_PROPERTY} to {@code true} registers the Blackbird module, which
+ * replaces reflective accessors by generated ones. It speeds up large listings but makes the warm-up longer.
+ */
+public final class CodaJson {
+    public static final String BLACKBIRD_PROPERTY = "io.kestra.plugin.coda.json.blackbird";
+
+    private static final ObjectMapper MAPPER = createMapper(Boolean.getBoolean(BLACKBIRD_PROPERTY));
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final Map<JavaType, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    private static final List<JavaType> MODEL_TYPES = List.of(
+        type(new TypeReference<PagedResponse<CodaRow>>() {}),
+        type(new TypeReference<PagedResponse<CodaColumn>>() {}),
+        type(new TypeReference<PagedResponse<CodaTable>>() {}),
+        type(new TypeReference<PagedResponse<CodaDoc>>() {}),
+        type(new TypeReference<PagedResponse<CodaPage>>() {}),
+        type(CodaRow.class),
+        type(CodaColumn.class),
+        type(CodaTable.class),
+        type(InsertRowsResponse.class),
+        type(MutationStatus.class),
+        type(AutomationResponse.class),
+        type(PageExportStatus.class)
+    );
+
+    private static volatile Thread warmUp;
+
+    private CodaJson() {
+    }
+
+    static ObjectMapper createMapper(boolean blackbird) {
+        JsonMapper.Builder builder = JsonMapper.builder();
+        if (blackbird) {
+            builder.addModule(new BlackbirdModule());
+        }
+        return builder.build();
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static JavaType type(Class<?> type) {
+        return MAPPER.getTypeFactory().constructType(type);
+    }
+
+    public static JavaType type(TypeReference<?> type) {
+        return MAPPER.getTypeFactory().constructType(type);
+    }
+
+    /**
+     * @return The reader of the given type, created and cached on first use with its deserializer already resolved
+     */
+    public static ObjectReader reader(JavaType type) {
+        return READERS.computeIfAbsent(type, MAPPER::readerFor);
+    }
+
+    /**
+     * @return The writer of request bodies; serializers are resolved and cached by the shared mapper on first use
+     */
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+
+    /**
+     * Resolves the readers of the API models and the serializers of the request models in the calling thread.
+     */
+    public static void warmUp() {
+        MODEL_TYPES.forEach(CodaJson::reader);
+        MAPPER.writerFor(InsertRowsRequest.class);
+        MAPPER.writerFor(UpdateRowRequest.class);
+    }
+
+    /**
+     * @return Whether the readers of all the API models are resolved, as they are after {@link #warmUp()}
+     */
+    static boolean isWarm() {
+        return READERS.keySet().containsAll(MODEL_TYPES);
+    }
+
+    /**
+     * Waits for the warm-up started by {@link #warmUpInBackground()}, if any.
+     *
+     * @return Whether no warm-up is still running
+     */
+    static boolean awaitWarmUp(Duration timeout) throws InterruptedException {
+        Thread thread = warmUp;
+        return thread == null || thread.join(timeout);
+    }
+
+    /**
+     * Starts {@link #warmUp()} in a daemon thread, once per process, so that the calling task is not slowed down.
+     */
+    public static void warmUpInBackground() {
+        if (warmUp != null) {
+            return;
+        }
+        synchronized (CodaJson.class) {
+            if (warmUp == null) {
+                warmUp = Thread.ofPlatform()
+                    .name("coda-json-warm-up")
+                    .daemon(true)
+                    .start(CodaJson::warmUp);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.models.PagedResponse;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterates over a paginated Coda API listing one page at a time, so callers never hold more than one page in memory.
+ *
+ * @param <T> The type of the items in each page
+ */
+public class CodaPager<T> {
+    private final CodaConnection connection;
+    private final String endpoint;
+    private final TypeReference<PagedResponse<T>> pageType;
+
+    private String nextEndpoint;
+    private String nextSyncToken;
+    private int pageCount = 0;
+
+    /**
+     * Creates a new pager.
+     *
+     * @param connection The Coda connection to use
+     * @param endpoint The endpoint of the first page, including any query parameters
+     * @param pageType The type reference of the page, e.g. {@code new TypeReference<PagedResponse<CodaRow>>() {}}
+     */
+    public CodaPager(CodaConnection connection, String endpoint, TypeReference<PagedResponse<T>> pageType) {
+        this.connection = connection;
+        this.endpoint = endpoint;
+        this.pageType = pageType;
+        this.nextEndpoint = endpoint;
+    }
+
+    /**
+     * @return true if there is another page to fetch
+     */
+    public boolean hasNext() {
+        return nextEndpoint != null;
+    }
+
+    /**
+     * Fetches the next page.
+     *
+     * @return The items of the next page, never null
+     * @throws CodaException if the request fails
+     */
+    public List<T> next() throws CodaException {
+        if (nextEndpoint == null) {
+            return Collections.emptyList();
+        }
+
+        PagedResponse<T> page = connection.get(nextEndpoint, pageType, pageCount + 1);
+        pageCount++;
+
+        if (page == null) {
+            nextEndpoint = null;
+            return Collections.emptyList();
+        }
+
+        if (page.getNextSyncToken() != null) {
+            nextSyncToken = page.getNextSyncToken();
+        }
+
+        if (page.getNextPageLink() != null) {
+            nextEndpoint = page.getNextPageLink();
+        } else if (page.getNextPageToken() != null) {
+            nextEndpoint = CodaEndpoints.withQuery(endpoint, Map.of("pageToken", page.getNextPageToken()));
+        } else {
+            nextEndpoint = null;
+        }
+
+        return page.getItems() != null ? page.getItems() : Collections.emptyList();
+    }
+
+    /**
+     * @return The sync token returned with the last page, or null if the listing does not support incremental sync
+     */
+    public String getNextSyncToken() {
+        return nextSyncToken;
+    }
+
+    /**
+     * @return The number of pages fetched so far
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+}
@@ -0,0 +1,103 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.models.CodaDoc;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the documents a multi-document task runs on. At least one criterion is required, so that a selector left
+ * empty by mistake does not select every document the token can access.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class DocSelector {
+    private static final TypeReference<PagedResponse<CodaDoc>> DOCS_PAGE = new TypeReference<>() {};
+
+    @Schema(
+        title = "Document IDs",
+        description = "The IDs of the documents. Alone, they are used as is, without listing the documents."
+    )
+    private List<String> ids;
+
+    @Schema(
+        title = "Workspace ID",
+        description = "Only select the documents of this workspace, e.g. `ws-1Ab234`."
+    )
+    private String workspaceId;
+
+    @Schema(
+        title = "Folder ID",
+        description = "Only select the documents of this folder, e.g. `fl-1Ab234`."
+    )
+    private String folderId;
+
+    @Schema(
+        title = "Name pattern",
+        description = "Only select the documents whose whole name matches this regular expression, e.g. `Client - .*`."
+    )
+    private String namePattern;
+
+    /**
+     * Lists the selected documents, following the pagination of the documents listing when needed.
+     *
+     * @param connection The Coda API connection
+     * @return The selected documents, in listing order
+     * @throws CodaException if the documents cannot be listed
+     */
+    public List<CodaDoc> resolve(CodaConnection connection) throws CodaException {
+        boolean hasIds = ids != null && !ids.isEmpty();
+        if (hasIds && workspaceId == null && folderId == null && namePattern == null) {
+            return ids.stream().map(id -> CodaDoc.builder().id(id).build()).toList();
+        }
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("limit", 100);
+        parameters.put("workspaceId", workspaceId);
+        parameters.put("folderId", folderId);
+
+        Set<String> selectedIds = hasIds ? new HashSet<>(ids) : null;
+        Pattern pattern = namePattern != null ? Pattern.compile(namePattern) : null;
+        CodaPager<CodaDoc> pager = new CodaPager<>(connection, CodaEndpoints.withQuery(CodaEndpoints.docs(), parameters), DOCS_PAGE);
+
+        List<CodaDoc> docs = new ArrayList<>();
+        while (pager.hasNext()) {
+            for (CodaDoc doc : pager.next()) {
+                if (selectedIds != null && !selectedIds.contains(doc.getId())) {
+                    continue;
+                }
+                if (pattern != null && (doc.getName() == null || !pattern.matcher(doc.getName()).matches())) {
+                    continue;
+                }
+                docs.add(doc);
+            }
+        }
+        return docs;
+    }
+
+    public static class DocSelectorBuilder {
+        public DocSelector build() {
+            if ((ids == null || ids.isEmpty()) && isBlank(workspaceId) && isBlank(folderId) && isBlank(namePattern)) {
+                throw new IllegalArgumentException("The document selector needs at least one of 'ids', 'workspaceId', 'folderId' or 'namePattern'");
+            }
+            return new DocSelector(ids, workspaceId, folderId, namePattern);
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+}
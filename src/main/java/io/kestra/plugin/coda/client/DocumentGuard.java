@@ -0,0 +1,178 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker and bulkhead guarding the calls made with one API token to one Coda document.
+ * <p>
+ * Guards are shared by every connection of the worker, so that all the tasks calling a degraded document fail fast
+ * together and can never hold more than {@code maxConcurrentCalls} threads on it. The configuration of the first
+ * connection to use a guard applies to it.
+ * <p>
+ * A guard without calls in flight that was not used for {@value #IDLE_MINUTES} minutes is dropped, and at most
+ * {@value #MAX_GUARDS} guards are kept, dropping the least recently used idle ones first, so the guards of the
+ * documents touched over the life of the worker do not pile up.
+ */
+public class DocumentGuard {
+    static final int IDLE_MINUTES = 15;
+    static final int MAX_GUARDS = 10_000;
+
+    private static final long IDLE_NANOS = Duration.ofMinutes(IDLE_MINUTES).toNanos();
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+    private static final Map<String, DocumentGuard> GUARDS = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_SWEEP = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Duration maxWait;
+    private final LatencyTracker readLatencies = new LatencyTracker(256);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    DocumentGuard(String name, CircuitBreakerConfig circuitBreakerConfig, int maxConcurrentCalls, Duration maxWait) {
+        this.circuitBreaker = new CircuitBreaker(name, circuitBreakerConfig);
+        this.bulkhead = new Bulkhead(name, maxConcurrentCalls);
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Returns the guard of a token and document, creating it on first use.
+     *
+     * @param key The token fingerprint and document ID
+     * @param name The display name of the guarded resource, used in error messages
+     * @param options The options of the connection asking for the guard
+     * @return The shared guard
+     */
+    static DocumentGuard of(String key, String name, CodaConnectionOptions options) {
+        long now = System.nanoTime();
+        DocumentGuard guard = GUARDS.computeIfAbsent(key, k -> new DocumentGuard(
+            name,
+            options.getCircuitBreaker(),
+            options.getMaxConcurrentRequestsPerDoc(),
+            options.getMaxBulkheadWait()
+        ));
+        guard.lastUsedNanos = now;
+
+        long nextSweep = NEXT_SWEEP.get();
+        if ((now - nextSweep >= 0 && NEXT_SWEEP.compareAndSet(nextSweep, now + SWEEP_INTERVAL_NANOS)) || GUARDS.size() > MAX_GUARDS) {
+            sweep(now);
+        }
+        return guard;
+    }
+
+    /**
+     * Drops the idle guards, then the least recently used guards without calls in flight while there are too many.
+     * A connection that still holds a dropped guard uses it for its current call only.
+     */
+    static void sweep(long now) {
+        GUARDS.entrySet().removeIf(entry -> entry.getValue().isIdle() && now - entry.getValue().lastUsedNanos > IDLE_NANOS);
+
+        int excess = GUARDS.size() - MAX_GUARDS;
+        if (excess > 0) {
+            GUARDS.entrySet().stream()
+                .filter(entry -> entry.getValue().isIdle())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsedNanos))
+                .limit(excess)
+                .toList()
+                .forEach(entry -> GUARDS.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    static int size() {
+        return GUARDS.size();
+    }
+
+    private boolean isIdle() {
+        return inFlight.get() == 0;
+    }
+
+    /**
+     * Acquires a bulkhead slot and the circuit breaker permission. Every successful call must be followed by
+     * {@link #release(long, boolean, long)} with the permit returned.
+     *
+     * @return The circuit breaker permit of the call
+     * @throws CodaException if the circuit is open or if no bulkhead slot became free in time
+     */
+    public long acquire() throws CodaException {
+        return acquire(maxWait);
+    }
+
+    /**
+     * Same as {@link #acquire()}, waiting at most the given time for a bulkhead slot when it is shorter than the
+     * configured wait.
+     */
+    public long acquire(Duration wait) throws CodaException {
+        circuitBreaker.checkNotOpen();
+        bulkhead.acquire(wait.compareTo(maxWait) < 0 ? wait : maxWait);
+        long permit;
+        try {
+            permit = circuitBreaker.acquirePermission();
+        } catch (CodaException e) {
+            bulkhead.release();
+            throw e;
+        }
+        inFlight.incrementAndGet();
+        return permit;
+    }
+
+    /**
+     * Records the outcome of a call and releases its bulkhead slot.
+     *
+     * @param permit The circuit breaker permit returned by {@link #acquire()}
+     * @param failure true if the call failed with a network or server error
+     * @param durationNanos The duration of the call
+     */
+    public void release(long permit, boolean failure, long durationNanos) {
+        try {
+            if (failure) {
+                circuitBreaker.onFailure(durationNanos, permit);
+            } else {
+                circuitBreaker.onSuccess(durationNanos, permit);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Takes a bulkhead slot for a hedged copy of a call in flight, without waiting and without asking the circuit
+     * breaker, as the copy is part of a call already permitted. Every slot taken must be given back with
+     * {@link #releaseHedge()}.
+     *
+     * @return Whether a slot was free
+     */
+    public boolean tryAcquireHedge() {
+        if (!bulkhead.tryAcquire()) {
+            return false;
+        }
+        inFlight.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Releases the bulkhead slot of a hedged copy. Its outcome is recorded with the call it copied.
+     */
+    public void releaseHedge() {
+        inFlight.decrementAndGet();
+        bulkhead.release();
+    }
+
+    /**
+     * @return The latencies of the recent reads of the document, used to compute hedging delays
+     */
+    public LatencyTracker getReadLatencies() {
+        return readLatencies;
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+}
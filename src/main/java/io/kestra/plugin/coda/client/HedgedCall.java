@@ -0,0 +1,96 @@
+package io.kestra.plugin.coda.client;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs one or more identical asynchronous calls and keeps the first response, whatever its status code.
+ * It only fails when every call has failed. Responses arriving after the first one are closed.
+ */
+class HedgedCall {
+    private final CompletableFuture<Response> winner = new CompletableFuture<>();
+    private final List<Call> calls = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicReference<Call> winningCall = new AtomicReference<>();
+
+    /**
+     * Enqueues a call, unless a response has already been received.
+     *
+     * @return true if the call was started
+     */
+    boolean start(Call call) {
+        if (winner.isDone()) {
+            return false;
+        }
+
+        calls.add(call);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                winningCall.compareAndSet(null, call);
+                if (winningCall.get() != call || !winner.complete(response)) {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (failures.incrementAndGet() >= calls.size()) {
+                    winner.completeExceptionally(e);
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Waits for the first response.
+     *
+     * @param timeoutNanos The maximum time to wait, or a negative value to wait until every call completes
+     * @return The first response, or null if none arrived in time
+     * @throws IOException if every call failed
+     * @throws InterruptedException if the thread was interrupted
+     */
+    Response await(long timeoutNanos) throws IOException, InterruptedException {
+        try {
+            return timeoutNanos < 0 ? winner.get() : winner.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Cancels every call but the one whose response was kept. Their late responses, if any, are discarded.
+     */
+    void cancelOthers() {
+        if (winningCall.get() == null) {
+            winner.thenAccept(Response::close);
+        }
+
+        for (Call call : calls) {
+            if (call != winningCall.get()) {
+                call.cancel();
+            }
+        }
+    }
+
+    int size() {
+        return calls.size();
+    }
+}
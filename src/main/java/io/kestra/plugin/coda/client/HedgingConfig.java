@@ -0,0 +1,38 @@
+package io.kestra.plugin.coda.client;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.time.Duration;
+
+/**
+ * Settings of request hedging for idempotent reads.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class HedgingConfig {
+    @Schema(
+        title = "Latency percentile",
+        description = "A second request is sent when the first one has not answered within this percentile " +
+            "of the recently observed read latencies of the document, e.g. 95 for the p95."
+    )
+    @Builder.Default
+    private Double percentile = 95.0;
+
+    @Schema(
+        title = "Minimum hedging delay",
+        description = "The hedging delay is never shorter than this, to avoid doubling the load when the API is fast."
+    )
+    @Builder.Default
+    private Duration minDelay = Duration.ofMillis(50);
+
+    @Schema(
+        title = "Minimum number of samples",
+        description = "No request is hedged until this number of read latencies has been observed for the document."
+    )
+    @Builder.Default
+    private Integer minSamples = 20;
+}
@@ -0,0 +1,43 @@
+package io.kestra.plugin.coda.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent call latencies in a fixed-size ring buffer and computes percentiles over them.
+ */
+public class LatencyTracker {
+    private final long[] samples;
+    private int position = 0;
+    private int count = 0;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long durationNanos) {
+        samples[position] = durationNanos;
+        position = (position + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * Computes a percentile of the recorded latencies, with the nearest-rank method.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The latency in nanoseconds, or -1 if nothing has been recorded yet
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+}
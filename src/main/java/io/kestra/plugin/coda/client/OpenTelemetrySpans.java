@@ -0,0 +1,104 @@
+package io.kestra.plugin.coda.client;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.Context;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records request traces as client spans, children of the span current in the calling thread, which is the span of
+ * the task run when the worker traces executions. Only loaded when the OpenTelemetry API is on the classpath.
+ */
+final class OpenTelemetrySpans {
+    static final String INSTRUMENTATION_NAME = "io.kestra.plugin.coda";
+
+    static final AttributeKey<String> HTTP_METHOD = AttributeKey.stringKey("http.request.method");
+    static final AttributeKey<Long> HTTP_STATUS = AttributeKey.longKey("http.response.status_code");
+    static final AttributeKey<Long> REQUEST_SIZE = AttributeKey.longKey("http.request.body.size");
+    static final AttributeKey<Long> RESPONSE_SIZE = AttributeKey.longKey("http.response.body.size");
+    static final AttributeKey<String> URL_TEMPLATE = AttributeKey.stringKey("url.template");
+    static final AttributeKey<String> SERVER_ADDRESS = AttributeKey.stringKey("server.address");
+    static final AttributeKey<String> DOC_ID = AttributeKey.stringKey("coda.doc.id");
+    static final AttributeKey<String> TABLE_ID = AttributeKey.stringKey("coda.table.id");
+    static final AttributeKey<Long> PAGE = AttributeKey.longKey("coda.page");
+    static final AttributeKey<Long> RETRY_ATTEMPT = AttributeKey.longKey("coda.retry.attempt");
+    static final AttributeKey<Long> RATE_LIMIT_WAIT = AttributeKey.longKey("coda.rate_limit.wait_ms");
+    static final AttributeKey<Long> BULKHEAD_WAIT = AttributeKey.longKey("coda.bulkhead.wait_ms");
+    static final AttributeKey<Long> HEDGED_CALLS = AttributeKey.longKey("coda.hedged_calls");
+    static final AttributeKey<String> REQUEST_PAYLOAD = AttributeKey.stringKey("coda.request.payload");
+    static final AttributeKey<String> RESPONSE_PAYLOAD = AttributeKey.stringKey("coda.response.payload");
+
+    private static volatile TracerProvider tracerProvider;
+
+    private OpenTelemetrySpans() {
+    }
+
+    /**
+     * Replaces the global tracer provider, for tests.
+     */
+    static void tracerProvider(TracerProvider provider) {
+        tracerProvider = provider;
+    }
+
+    static ExecutorService propagateContext(ExecutorService executor) {
+        return Context.taskWrapping(executor);
+    }
+
+    static void record(RequestTrace trace) {
+        TracerProvider provider = tracerProvider != null ? tracerProvider : GlobalOpenTelemetry.getTracerProvider();
+        Tracer tracer = provider.get(INSTRUMENTATION_NAME);
+
+        // the span is built once the call is over, with the timestamps it actually ran at
+        SpanBuilder builder = tracer.spanBuilder(trace.getMethod() + " " + trace.getEndpointTemplate())
+            .setParent(Context.current())
+            .setSpanKind(SpanKind.CLIENT)
+            .setStartTimestamp(trace.getStartTime())
+            .setAttribute(HTTP_METHOD, trace.getMethod())
+            .setAttribute(URL_TEMPLATE, trace.getEndpointTemplate())
+            .setAttribute(SERVER_ADDRESS, trace.getHost())
+            .setAttribute(RETRY_ATTEMPT, (long) trace.getAttempt())
+            .setAttribute(RATE_LIMIT_WAIT, TimeUnit.NANOSECONDS.toMillis(trace.getRateLimitWaitNanos()))
+            .setAttribute(BULKHEAD_WAIT, TimeUnit.NANOSECONDS.toMillis(trace.getBulkheadWaitNanos()))
+            .setAttribute(HEDGED_CALLS, (long) trace.getHedgedCalls());
+
+        if (trace.getDocId() != null) {
+            builder.setAttribute(DOC_ID, trace.getDocId());
+        }
+        if (trace.getTableId() != null) {
+            builder.setAttribute(TABLE_ID, trace.getTableId());
+        }
+        if (trace.getPage() != null) {
+            builder.setAttribute(PAGE, (long) trace.getPage());
+        }
+        if (trace.getRequestBytes() >= 0) {
+            builder.setAttribute(REQUEST_SIZE, trace.getRequestBytes());
+        }
+        if (trace.getResponseBytes() >= 0) {
+            builder.setAttribute(RESPONSE_SIZE, trace.getResponseBytes());
+        }
+        if (trace.getStatusCode() != null) {
+            builder.setAttribute(HTTP_STATUS, (long) trace.getStatusCode());
+        }
+        if (trace.getRequestPayload() != null) {
+            builder.setAttribute(REQUEST_PAYLOAD, trace.getRequestPayload());
+        }
+        if (trace.getResponsePayload() != null) {
+            builder.setAttribute(RESPONSE_PAYLOAD, trace.getResponsePayload());
+        }
+
+        Span span = builder.startSpan();
+        if (trace.getError() != null) {
+            span.recordException(trace.getError());
+            span.setStatus(StatusCode.ERROR, String.valueOf(trace.getError().getMessage()));
+        }
+        span.end(trace.getStartTime().plusNanos(trace.getDurationNanos()));
+    }
+}
@@ -0,0 +1,29 @@
+package io.kestra.plugin.coda.client;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Settings of the capture of request and response bodies in traces and debug logs.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class PayloadCaptureConfig {
+    @Schema(
+        title = "Sample rate",
+        description = "The fraction of the requests whose bodies are captured, between 0 and 1. Failed requests always " +
+            "have their response body captured."
+    )
+    @Builder.Default
+    private Double sampleRate = 0.01;
+
+    @Schema(
+        title = "Maximum captured bytes",
+        description = "Captured bodies are truncated to this number of bytes."
+    )
+    @Builder.Default
+    private Integer maxBytes = 2048;
+}
@@ -0,0 +1,67 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaDeadlineExceededException;
+import io.kestra.plugin.coda.exceptions.CodaException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket shared by concurrent calls, so that together they stay under a request rate instead of each being
+ * rejected by the API and backing off. Up to one second of budget can be used in a burst.
+ */
+public class RateBudget {
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double available;
+    private long lastRefill = System.nanoTime();
+
+    /**
+     * @param requestsPerSecond The sustained request rate
+     */
+    public RateBudget(double requestsPerSecond) {
+        this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, requestsPerSecond);
+        this.available = capacity;
+    }
+
+    /**
+     * Takes one request from the budget, waiting until it is available.
+     *
+     * @param maxWait The maximum time to wait, or null to wait as long as needed
+     * @return The time waited, in nanoseconds
+     * @throws CodaException if the budget would only be available after the maximum wait, or if the thread was interrupted
+     */
+    public long acquire(Duration maxWait) throws CodaException {
+        long waitNanos = reserve();
+        if (waitNanos == 0) {
+            return 0;
+        }
+        if (maxWait != null && waitNanos > maxWait.toNanos()) {
+            throw new CodaDeadlineExceededException("Task deadline would be exceeded while waiting for the request rate budget");
+        }
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodaException("Interrupted while waiting for the request rate budget", e);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * Takes one request from the budget, going into debt if it is empty.
+     *
+     * @return The time until the request is covered by the budget
+     */
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+
+        available -= 1;
+        return available >= 0 ? 0 : (long) (-available / permitsPerNano);
+    }
+}
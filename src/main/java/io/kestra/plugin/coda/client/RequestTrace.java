@@ -0,0 +1,160 @@
+package io.kestra.plugin.coda.client;
+
+import lombok.Getter;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * What happened during one attempt of a Coda API call: the endpoint it targeted, where its time went and what it
+ * returned. Each attempt becomes one client span when OpenTelemetry is available to the plugin.
+ */
+@Getter
+class RequestTrace {
+    // the segment following each of these is an ID, replaced by a placeholder in the endpoint template
+    private static final Map<String, String> ID_SEGMENTS = Map.of(
+        "docs", "{docId}",
+        "tables", "{tableId}",
+        "columns", "{columnId}",
+        "rows", "{rowId}",
+        "pages", "{pageId}",
+        "export", "{exportId}",
+        "automation", "{ruleId}",
+        "mutationStatus", "{requestId}"
+    );
+
+    private final String method;
+    private final String host;
+    private final String endpointTemplate;
+    private final String docId;
+    private final String tableId;
+    private final Integer page;
+    private final int attempt;
+    private final boolean sampled;
+    private final int maxCapturedBytes;
+    private final Instant startTime = Instant.now();
+    private final long startNanos = System.nanoTime();
+
+    private long requestBytes = -1;
+    private long responseBytes = -1;
+    private long rateLimitWaitNanos;
+    private long bulkheadWaitNanos;
+    private long durationNanos;
+    private int hedgedCalls = 1;
+    private Integer statusCode;
+    private String requestPayload;
+    private String responsePayload;
+    private Throwable error;
+
+    RequestTrace(Request request, Integer page, int attempt, long rateLimitWaitNanos, PayloadCaptureConfig capture) {
+        this(request, null, page, attempt, rateLimitWaitNanos, capture);
+    }
+
+    /**
+     * @param endpointTemplate The name of the endpoint in spans, or null to derive it from the URL
+     */
+    RequestTrace(Request request, String endpointTemplate, Integer page, int attempt, long rateLimitWaitNanos, PayloadCaptureConfig capture) {
+        HttpUrl url = request.url();
+        List<String> segments = url.pathSegments();
+
+        StringBuilder template = new StringBuilder();
+        String doc = null;
+        String table = null;
+        for (int i = 0; i < segments.size(); i++) {
+            String placeholder = i > 0 ? ID_SEGMENTS.get(segments.get(i - 1)) : null;
+            template.append('/').append(placeholder != null ? placeholder : segments.get(i));
+
+            if ("{docId}".equals(placeholder)) {
+                doc = segments.get(i);
+            } else if ("{tableId}".equals(placeholder)) {
+                table = segments.get(i);
+            }
+        }
+
+        this.method = request.method();
+        this.host = url.host();
+        this.endpointTemplate = endpointTemplate != null ? endpointTemplate : template.toString();
+        this.docId = doc;
+        this.tableId = table;
+        this.page = page;
+        this.attempt = attempt;
+        this.rateLimitWaitNanos = rateLimitWaitNanos;
+        this.sampled = capture.getSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < capture.getSampleRate();
+        this.maxCapturedBytes = capture.getMaxBytes();
+
+        if (request.body() != null) {
+            try {
+                requestBytes = request.body().contentLength();
+                if (sampled) {
+                    Buffer buffer = new Buffer();
+                    request.body().writeTo(buffer);
+                    requestPayload = truncate(buffer.readByteArray());
+                }
+            } catch (IOException e) {
+                // the size and the payload are informative only
+            }
+        }
+    }
+
+    /**
+     * Adds time spent waiting for the rate limit, either before a retry or for a shared rate budget.
+     */
+    void rateLimitWait(long nanos) {
+        this.rateLimitWaitNanos += nanos;
+    }
+
+    void bulkheadWait(long nanos) {
+        this.bulkheadWaitNanos = nanos;
+    }
+
+    void hedged(int calls) {
+        this.hedgedCalls = calls;
+    }
+
+    /**
+     * Records the response, capturing its body if the request is sampled or failed.
+     */
+    void response(int statusCode, byte[] body) {
+        this.statusCode = statusCode;
+        this.responseBytes = body.length;
+        if (sampled || statusCode >= 400) {
+            this.responsePayload = truncate(body);
+        }
+    }
+
+    /**
+     * Records a response whose body is streamed to the caller instead of captured.
+     */
+    void response(int statusCode, long bodyBytes) {
+        this.statusCode = statusCode;
+        this.responseBytes = bodyBytes;
+    }
+
+    /**
+     * Ends the attempt and exports it as a span.
+     *
+     * @param error The error the attempt ended with, or null if it succeeded
+     */
+    void end(Throwable error) {
+        this.error = error;
+        this.durationNanos = System.nanoTime() - startNanos;
+        Tracing.export(this);
+    }
+
+    /**
+     * @return The body decoded as text, cut to the maximum captured size
+     */
+    String truncate(byte[] body) {
+        if (body.length <= maxCapturedBytes) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        return new String(body, 0, maxCapturedBytes, StandardCharsets.UTF_8) + "... (" + body.length + " bytes)";
+    }
+}
@@ -0,0 +1,124 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+
+import java.util.*;
+
+/**
+ * Reads some columns of a table with the {@code rich} value format, alongside a listing of its rows in the format of
+ * the caller.
+ * <p>
+ * Only the {@code rich} format tells the table and row IDs of a lookup cell, but it also turns text into Markdown, so
+ * the rows are listed as asked and the table is listed a second time with the {@code rich} format, page by page in step
+ * with the first listing. The values of the given columns are taken from the second listing and matched by row ID;
+ * the second listing is read up to the rows of the first one, plus the rest of its last page, so a row that moved while
+ * the table was paged keeps the value of the first listing. A value that no row of the current page claimed is kept
+ * for the next page, in case its row moved by a few positions, and dropped after it.
+ */
+public class RichColumnReader {
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+
+    private final CodaPager<CodaRow> pager;
+    private final Set<String> columnIds;
+    // the values read ahead, in the order of the second listing
+    private final Map<String, Pending> pending = new LinkedHashMap<>();
+    private long listedRows;
+    private long readRows;
+
+    /**
+     * Creates a new reader.
+     *
+     * @param connection The Coda connection to use
+     * @param docId The document ID
+     * @param tableId The table ID
+     * @param parameters The query parameters of the first listing, which must list the rows in the same order
+     * @param columnIds The columns to read with the {@code rich} format, by ID, or by name if the listings use column names
+     */
+    public RichColumnReader(CodaConnection connection, String docId, String tableId, Map<String, Object> parameters, Set<String> columnIds) {
+        Map<String, Object> richParameters = new LinkedHashMap<>(parameters);
+        richParameters.put("valueFormat", "rich");
+
+        this.pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(docId, tableId), richParameters),
+            ROWS_PAGE
+        );
+        this.columnIds = columnIds;
+    }
+
+    /**
+     * Replaces the values of the columns of a page of the first listing by their {@code rich} values.
+     *
+     * @param rows The next page of the first listing
+     * @return Copies of the rows with the {@code rich} values of the columns
+     * @throws CodaException if the second listing fails
+     */
+    public List<CodaRow> read(List<CodaRow> rows) throws CodaException {
+        long windowStart = listedRows;
+        listedRows += rows.size();
+        while (pager.hasNext() && readRows < listedRows && !rows.stream().allMatch(row -> pending.containsKey(row.getId()))) {
+            for (CodaRow row : pager.next()) {
+                Map<String, Object> values = new HashMap<>();
+                if (row.getValues() != null) {
+                    row.getValues().forEach((column, value) -> {
+                        if (columnIds.contains(column)) {
+                            values.put(column, value);
+                        }
+                    });
+                }
+                pending.put(row.getId(), new Pending(readRows, values));
+                readRows++;
+            }
+        }
+
+        List<CodaRow> merged = new ArrayList<>(rows.size());
+        for (CodaRow row : rows) {
+            Pending read = pending.remove(row.getId());
+            Map<String, Object> rich = read != null ? read.values() : null;
+            if (rich == null || rich.isEmpty()) {
+                merged.add(row);
+                continue;
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            if (row.getValues() != null) {
+                values.putAll(row.getValues());
+            }
+            values.putAll(rich);
+            merged.add(CodaRow.builder()
+                .id(row.getId())
+                .type(row.getType())
+                .name(row.getName())
+                .index(row.getIndex())
+                .browserLink(row.getBrowserLink())
+                .createdAt(row.getCreatedAt())
+                .updatedAt(row.getUpdatedAt())
+                .values(values)
+                .parent(row.getParent())
+                .build());
+        }
+
+        // the values read for the previous pages will not be claimed any more
+        Iterator<Pending> unclaimed = pending.values().iterator();
+        while (unclaimed.hasNext() && unclaimed.next().position() < windowStart) {
+            unclaimed.remove();
+        }
+        return merged;
+    }
+
+    /**
+     * @return The number of pages of the second listing fetched so far
+     */
+    public int getPageCount() {
+        return pager.getPageCount();
+    }
+
+    /**
+     * The values of a row of the second listing and its position in it.
+     */
+    private record Pending(long position, Map<String, Object> values) {
+    }
+}
@@ -0,0 +1,258 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.models.InsertRowsRequest;
+import io.kestra.plugin.coda.models.InsertRowsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Buffers rows and sends them to a Coda table in bounded batches, as inserts or as upserts when key columns are set.
+ * <p>
+ * With a fixed batch size, batches are sent one at a time and at most {@code batchSize} rows are held in memory.
+ * With an {@link AdaptiveBatchController}, the batch size and the number of batches in flight follow the controller,
+ * batches are sent from background threads and may be applied out of order, and a batch rejected for its size is
+ * split and sent again.
+ */
+public class RowBatchWriter implements AutoCloseable {
+    private static final int PAYLOAD_TOO_LARGE = 413;
+
+    private final CodaConnection connection;
+    private final String endpoint;
+    private final List<String> keyColumns;
+    private final int batchSize;
+    private final AdaptiveBatchController controller;
+    private final ExecutorService executor;
+    private final AtomicReference<CodaException> failure = new AtomicReference<>();
+
+    private List<InsertRowsRequest.RowData> buffer = new ArrayList<>();
+    private final AtomicLong rowCount = new AtomicLong();
+    private final AtomicInteger batchCount = new AtomicInteger();
+    // batches are numbered in submission order, as they may be acknowledged out of order
+    private long nextSequence;
+    private long lastRequestSequence = -1;
+    private String lastRequestId;
+
+    /**
+     * Creates a new batch writer.
+     *
+     * @param connection The Coda connection to use
+     * @param docId The document ID
+     * @param tableId The table ID, which must be a base table and not a view
+     * @param keyColumns The IDs of the columns to upsert on, or an empty list to insert
+     * @param batchSize The maximum number of rows per request
+     */
+    public RowBatchWriter(CodaConnection connection, String docId, String tableId, List<String> keyColumns, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, got " + batchSize);
+        }
+
+        this.connection = connection;
+        this.endpoint = CodaEndpoints.rows(docId, tableId);
+        this.keyColumns = keyColumns;
+        this.batchSize = batchSize;
+        this.controller = null;
+        this.executor = null;
+    }
+
+    /**
+     * Creates a batch writer whose batch size and concurrency are tuned by a controller.
+     *
+     * @param connection The Coda connection to use
+     * @param docId The document ID
+     * @param tableId The table ID, which must be a base table and not a view
+     * @param keyColumns The IDs of the columns to upsert on, or an empty list to insert
+     * @param controller The controller of the batch size and of the number of batches in flight
+     */
+    public RowBatchWriter(CodaConnection connection, String docId, String tableId, List<String> keyColumns, AdaptiveBatchController controller) {
+        this.connection = connection;
+        this.endpoint = CodaEndpoints.rows(docId, tableId);
+        this.keyColumns = keyColumns;
+        this.batchSize = 0;
+        this.controller = controller;
+        // one thread per batch in flight, bounded by the concurrency of the controller
+        this.executor = Tracing.propagateContext(
+            Executors.newThreadPerTaskExecutor(Thread.ofPlatform().name("coda-row-batch-", 0).daemon(true).factory())
+        );
+    }
+
+    /**
+     * Adds a row, sending the current batch when it is full.
+     *
+     * @param row The row to write
+     * @throws CodaException if a batch cannot be sent
+     */
+    public void write(InsertRowsRequest.RowData row) throws CodaException {
+        throwFailure();
+
+        buffer.add(row);
+        if (buffer.size() >= (controller != null ? controller.getBatchSize() : batchSize)) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the buffered rows, if any. With a controller, the batch is sent in the background once a slot is free.
+     *
+     * @throws CodaException if the batch, or an earlier one, cannot be sent
+     */
+    public void flush() throws CodaException {
+        throwFailure();
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        List<InsertRowsRequest.RowData> batch = buffer;
+        buffer = new ArrayList<>();
+        long sequence = nextSequence++;
+
+        if (controller == null) {
+            send(batch, sequence);
+            return;
+        }
+
+        try {
+            controller.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodaException("Interrupted while waiting to send a batch", e);
+        }
+
+        executor.execute(() -> {
+            try {
+                send(batch, sequence);
+            } catch (CodaException e) {
+                failure.compareAndSet(null, e);
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, new CodaException("Failed to send a batch: " + e.getMessage(), e));
+            } finally {
+                controller.release();
+            }
+        });
+    }
+
+    /**
+     * Drops the buffered rows without sending them, so that {@link #close()} only waits for the batches in flight.
+     * The batches already sent are not undone.
+     *
+     * @return The number of rows dropped
+     */
+    public int discard() {
+        int dropped = buffer.size();
+        buffer = new ArrayList<>();
+        return dropped;
+    }
+
+    private void send(List<InsertRowsRequest.RowData> batch, long sequence) throws CodaException {
+        InsertRowsRequest request = InsertRowsRequest.builder()
+            .rows(batch)
+            .keyColumns(keyColumns)
+            .build();
+
+        InsertRowsResponse response;
+        if (controller == null) {
+            response = connection.post(endpoint, request, InsertRowsResponse.class);
+        } else {
+            byte[] body;
+            try {
+                body = CodaJson.writer().writeValueAsBytes(request);
+            } catch (Exception e) {
+                throw new CodaException("Failed to serialize request body: " + e.getMessage(), e);
+            }
+
+            // counted for this request only, as the connection is shared with the other batches in flight
+            AtomicInteger rateLimited = new AtomicInteger();
+            long start = System.nanoTime();
+            try {
+                response = connection.post(endpoint, body, InsertRowsResponse.class, rateLimited);
+            } catch (CodaException e) {
+                if (Integer.valueOf(PAYLOAD_TOO_LARGE).equals(e.getStatusCode()) && batch.size() > 1) {
+                    // the API rejected the whole batch, so its halves can be sent without duplicating rows
+                    controller.tooLarge(batch.size());
+                    send(batch.subList(0, batch.size() / 2), sequence);
+                    send(batch.subList(batch.size() / 2, batch.size()), sequence);
+                    return;
+                }
+                controller.failed();
+                throw e;
+            }
+            controller.succeeded(
+                batch.size(),
+                body.length,
+                System.nanoTime() - start,
+                rateLimited.get() > 0
+            );
+        }
+
+        rowCount.addAndGet(batch.size());
+        batchCount.incrementAndGet();
+        if (response != null && response.getRequestId() != null) {
+            acknowledge(sequence, response.getRequestId());
+        }
+    }
+
+    private synchronized void acknowledge(long sequence, String requestId) {
+        // the halves of a split batch share its number and are sent in order
+        if (sequence >= lastRequestSequence) {
+            lastRequestSequence = sequence;
+            lastRequestId = requestId;
+        }
+    }
+
+    /**
+     * Rethrows the first failure of a batch sent in the background.
+     */
+    private void throwFailure() throws CodaException {
+        CodaException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount.get();
+    }
+
+    public int getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return The request ID of the acknowledged batch submitted last, which is not always the last one acknowledged
+     * when batches are sent in the background
+     */
+    public synchronized String getLastRequestId() {
+        return lastRequestId;
+    }
+
+    /**
+     * Sends the buffered rows and waits for every batch in flight.
+     *
+     * @throws CodaException if a batch cannot be sent
+     */
+    @Override
+    public void close() throws CodaException {
+        try {
+            flush();
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+                try {
+                    executor.awaitTermination(1, TimeUnit.DAYS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    executor.shutdownNow();
+                    throw new CodaException("Interrupted while waiting for the batches in flight", e);
+                }
+            }
+        }
+        throwFailure();
+    }
+}
@@ -0,0 +1,262 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.exceptions.CodaResourceNotFoundException;
+import io.kestra.plugin.coda.formats.RowSchema;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.CodaTable;
+import io.kestra.plugin.coda.models.PagedResponse;
+
+import java.util.*;
+
+/**
+ * Replaces the references to other rows, the lookup cells of rows listed with the {@code rich} value format and the
+ * parent of rows in hierarchical tables, by the values of the referenced rows.
+ * <p>
+ * A reference only carries the ID and the name of a row. The references of a page of rows are collected and resolved
+ * together per table, and every resolved row is kept for the rest of the run, so a row referenced by many rows is
+ * fetched once. The rows of a table are fetched one by one as long as that costs fewer requests than listing the whole
+ * table; once the rows fetched from a table add up to the pages of its listing, the table is listed instead and every
+ * later reference to it is served from memory. Tables of more than {@value #MAX_LISTED_ROWS} rows are never listed.
+ * <p>
+ * The resolved rows are not evicted, as a listed table is only served from memory, so the memory of a resolver grows
+ * with the number of distinct rows referenced over the run: at most {@value #MAX_LISTED_ROWS} rows per listed table,
+ * and every row fetched one by one from the tables too large to be listed.
+ * <p>
+ * Referenced rows are expanded one level deep, into their ID, name and values keyed by column name; their own
+ * references are left as returned by the API. A reference to a row that no longer exists is kept as is.
+ */
+public class RowReferenceResolver {
+    public static final int MAX_LISTED_ROWS = 100_000;
+
+    private static final int LISTING_PAGE_SIZE = 500;
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+    // resolved rows that do not exist, kept so that they are not requested again
+    private static final Map<String, Object> MISSING = Collections.emptyMap();
+
+    private final CodaConnection connection;
+    private final String docId;
+    private final Map<String, Map<String, Map<String, Object>>> resolved = new HashMap<>();
+    private final Map<String, Integer> listingCosts = new HashMap<>();
+    private final Map<String, Integer> fetchedRows = new HashMap<>();
+    private final Set<String> listedTables = new HashSet<>();
+    private long requests;
+
+    /**
+     * Creates a new resolver.
+     *
+     * @param connection The Coda connection to use
+     * @param docId The document of the rows, which holds every table they can reference
+     */
+    public RowReferenceResolver(CodaConnection connection, String docId) {
+        this.connection = connection;
+        this.docId = docId;
+    }
+
+    /**
+     * Expands the references of a page of rows.
+     *
+     * @param tableId The table of the rows, which their parents belong to
+     * @param rows The rows, whose lookup cells are in the {@code rich} value format, as read by a {@link RichColumnReader}
+     * @return Copies of the rows whose resolved references are replaced by the referenced rows, and whose parent is
+     * set under {@link RowSchema#PARENT_FIELD}
+     * @throws CodaException if the referenced rows cannot be fetched
+     */
+    public List<CodaRow> expand(String tableId, List<CodaRow> rows) throws CodaException {
+        Map<String, Set<String>> references = new LinkedHashMap<>();
+        for (CodaRow row : rows) {
+            if (row.getParent() != null && row.getParent().getId() != null) {
+                references.computeIfAbsent(tableId, k -> new LinkedHashSet<>()).add(row.getParent().getId());
+            }
+            if (row.getValues() != null) {
+                row.getValues().values().forEach(value -> collect(value, references));
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : references.entrySet()) {
+            resolve(entry.getKey(), entry.getValue());
+        }
+
+        List<CodaRow> expanded = new ArrayList<>(rows.size());
+        for (CodaRow row : rows) {
+            expanded.add(expand(tableId, row));
+        }
+        return expanded;
+    }
+
+    /**
+     * @return The number of distinct rows resolved so far
+     */
+    public long getResolvedRows() {
+        return resolved.values().stream()
+            .mapToLong(rows -> rows.values().stream().filter(values -> values != MISSING).count())
+            .sum();
+    }
+
+    /**
+     * @return The number of requests made to resolve references
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    private void resolve(String tableId, Set<String> rowIds) throws CodaException {
+        if (listedTables.contains(tableId)) {
+            return;
+        }
+
+        Map<String, Map<String, Object>> known = resolved.computeIfAbsent(tableId, k -> new HashMap<>());
+        List<String> missing = rowIds.stream().filter(rowId -> !known.containsKey(rowId)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        int fetched = fetchedRows.getOrDefault(tableId, 0);
+        if (fetched + missing.size() >= listingCost(tableId)) {
+            list(tableId, known);
+            listedTables.add(tableId);
+            missing.forEach(rowId -> known.putIfAbsent(rowId, MISSING));
+            return;
+        }
+
+        for (String rowId : missing) {
+            known.put(rowId, fetch(tableId, rowId));
+        }
+        fetchedRows.put(tableId, fetched + missing.size());
+    }
+
+    /**
+     * @return The number of requests needed to list a table, or {@link Integer#MAX_VALUE} if it is not to be listed
+     */
+    private int listingCost(String tableId) throws CodaException {
+        Integer cost = listingCosts.get(tableId);
+        if (cost == null) {
+            CodaTable table = connection.get(CodaEndpoints.table(docId, tableId), CodaTable.class);
+            requests++;
+            Integer rowCount = table != null ? table.getRowCount() : null;
+            cost = rowCount == null || rowCount > MAX_LISTED_ROWS
+                ? Integer.MAX_VALUE
+                : Math.max(1, (rowCount + LISTING_PAGE_SIZE - 1) / LISTING_PAGE_SIZE);
+            listingCosts.put(tableId, cost);
+        }
+        return cost;
+    }
+
+    private void list(String tableId, Map<String, Map<String, Object>> known) throws CodaException {
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(
+                CodaEndpoints.rows(docId, tableId),
+                Map.of("limit", LISTING_PAGE_SIZE, "useColumnNames", true)
+            ),
+            ROWS_PAGE
+        );
+
+        while (pager.hasNext()) {
+            for (CodaRow row : pager.next()) {
+                known.put(row.getId(), toValues(row));
+            }
+        }
+        requests += pager.getPageCount();
+    }
+
+    private Map<String, Object> fetch(String tableId, String rowId) throws CodaException {
+        requests++;
+        try {
+            CodaRow row = connection.get(
+                CodaEndpoints.withQuery(CodaEndpoints.row(docId, tableId, rowId), Map.of("useColumnNames", true)),
+                CodaRow.class
+            );
+            return row != null ? toValues(row) : MISSING;
+        } catch (CodaResourceNotFoundException e) {
+            return MISSING;
+        }
+    }
+
+    private CodaRow expand(String tableId, CodaRow row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (row.getValues() != null) {
+            row.getValues().forEach((column, value) -> values.put(column, replace(value)));
+        }
+        if (row.getParent() != null && row.getParent().getId() != null) {
+            Map<String, Object> parent = lookup(tableId, row.getParent().getId());
+            if (parent == null) {
+                parent = new LinkedHashMap<>();
+                parent.put(RowSchema.ID_FIELD, row.getParent().getId());
+                parent.put(RowSchema.NAME_FIELD, row.getParent().getName());
+            }
+            values.put(RowSchema.PARENT_FIELD, parent);
+        }
+
+        return CodaRow.builder()
+            .id(row.getId())
+            .type(row.getType())
+            .name(row.getName())
+            .index(row.getIndex())
+            .browserLink(row.getBrowserLink())
+            .createdAt(row.getCreatedAt())
+            .updatedAt(row.getUpdatedAt())
+            .values(values)
+            .parent(row.getParent())
+            .build();
+    }
+
+    private Object replace(Object value) {
+        if (value instanceof List<?> list) {
+            List<Object> replaced = new ArrayList<>(list.size());
+            list.forEach(item -> replaced.add(replace(item)));
+            return replaced;
+        }
+
+        Reference reference = Reference.of(value);
+        if (reference == null) {
+            return value;
+        }
+        Map<String, Object> row = lookup(reference.tableId(), reference.rowId());
+        return row != null ? row : value;
+    }
+
+    private Map<String, Object> lookup(String tableId, String rowId) {
+        Map<String, Object> row = resolved.getOrDefault(tableId, Map.of()).get(rowId);
+        return row != null && row != MISSING ? row : null;
+    }
+
+    private static void collect(Object value, Map<String, Set<String>> references) {
+        if (value instanceof List<?> list) {
+            list.forEach(item -> collect(item, references));
+            return;
+        }
+
+        Reference reference = Reference.of(value);
+        if (reference != null) {
+            references.computeIfAbsent(reference.tableId(), k -> new LinkedHashSet<>()).add(reference.rowId());
+        }
+    }
+
+    private static Map<String, Object> toValues(CodaRow row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(RowSchema.ID_FIELD, row.getId());
+        values.put(RowSchema.NAME_FIELD, row.getName());
+        if (row.getValues() != null) {
+            values.putAll(row.getValues());
+        }
+        return values;
+    }
+
+    /**
+     * A lookup cell of the {@code rich} value format, e.g.
+     * {@code {"@type": "StructuredValue", "additionalType": "row", "tableId": "grid-abc", "rowId": "i-xyz", "name": "..."}}.
+     */
+    private record Reference(String tableId, String rowId) {
+        static Reference of(Object value) {
+            if (value instanceof Map<?, ?> map
+                && "row".equals(map.get("additionalType"))
+                && map.get("tableId") instanceof String tableId
+                && map.get("rowId") instanceof String rowId) {
+                return new Reference(tableId, rowId);
+            }
+            return null;
+        }
+    }
+}
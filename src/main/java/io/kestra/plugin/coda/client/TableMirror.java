@@ -0,0 +1,415 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.formats.RowKeys;
+import io.kestra.plugin.coda.formats.RowSchema;
+import io.kestra.plugin.coda.models.CodaColumn;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker-local copy of a Coda table, indexed by the value of one column, so that lookups by key are served from memory
+ * instead of costing an API call each.
+ * <p>
+ * Mirrors are shared by every task of the worker looking up the same table by the same column. Once loaded, a mirror
+ * is refreshed in the background: changed rows are fetched with the sync token of the previous listing and applied in
+ * place, and the whole table is reloaded every full refresh interval to drop deleted rows. A mirror that served no
+ * lookup for a full refresh interval stops refreshing and is dropped. The configuration of the first task to use a
+ * mirror applies to it.
+ * <p>
+ * The rows are kept on the heap as parsed rows rather than in an embedded or off-heap store, which would need a native
+ * dependency and a serialized copy of every row. The heap they take is bounded instead: a mirror holds at most its
+ * {@code maxRows} rows and fails to load a larger table, and the mirrors of the worker together hold at most
+ * {@value #DEFAULT_MAX_WORKER_ROWS} rows, or the value of the system property {@value #MAX_WORKER_ROWS_PROPERTY}. When
+ * a load goes over that budget, the mirrors used least recently are dropped, to be loaded again by their next lookup.
+ */
+public class TableMirror {
+    public static final String MAX_WORKER_ROWS_PROPERTY = "io.kestra.plugin.coda.mirror.maxWorkerRows";
+    public static final long DEFAULT_MAX_WORKER_ROWS = 1_000_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TableMirror.class);
+    private static final long MAX_WORKER_ROWS = Long.getLong(MAX_WORKER_ROWS_PROPERTY, DEFAULT_MAX_WORKER_ROWS);
+
+    private static final Map<String, TableMirror> MIRRORS = new ConcurrentHashMap<>();
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+    private static final TypeReference<PagedResponse<CodaColumn>> COLUMNS_PAGE = new TypeReference<>() {};
+    private static final int PAGE_SIZE = 500;
+
+    private static final ScheduledExecutorService REFRESHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "coda-table-mirror");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String key;
+    private final CodaConnection connection;
+    private final String docId;
+    private final String tableId;
+    private final String keyColumn;
+    private final int maxRows;
+    private final Duration refreshInterval;
+    private final Duration fullRefreshInterval;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final ScheduledFuture<?> refreshTask;
+
+    // the index, its schema and the refresh times are published together, so a lookup never mixes two loads
+    private volatile State state;
+    private volatile long lastAccessNanos = System.nanoTime();
+    private String syncToken;
+
+    TableMirror(String key, CodaConnection connection, String docId, String tableId, String keyColumn, int maxRows,
+                Duration refreshInterval, Duration fullRefreshInterval) {
+        this.key = key;
+        this.connection = connection;
+        this.docId = docId;
+        this.tableId = tableId;
+        this.keyColumn = keyColumn;
+        this.maxRows = maxRows;
+        this.refreshInterval = refreshInterval;
+        this.fullRefreshInterval = fullRefreshInterval;
+        this.refreshTask = REFRESHER.scheduleWithFixedDelay(
+            this::refreshInBackground,
+            refreshInterval.toMillis(),
+            refreshInterval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Returns the mirror of a table indexed by a column, creating it on first use, or when the cached mirror was
+     * created with another maximum number of rows or other intervals, so that changed settings apply at once. The
+     * mirror is loaded by the first lookup, not here.
+     *
+     * @param connection The connection used to refresh the mirror; it must not have a deadline
+     * @param docId The document ID
+     * @param tableId The table ID or name
+     * @param keyColumn The name or ID of the column to index the rows by
+     * @param maxRows The maximum number of rows of the mirror
+     * @param refreshInterval The delay between two background refreshes
+     * @param fullRefreshInterval The delay between two full reloads of the table
+     * @return The shared mirror
+     */
+    public static TableMirror of(CodaConnection connection, String docId, String tableId, String keyColumn, int maxRows,
+                                 Duration refreshInterval, Duration fullRefreshInterval) {
+        String key = connection.getScope() + "/" + docId + "/" + tableId + "/" + keyColumn;
+        return MIRRORS.compute(key, (k, existing) -> {
+            if (existing != null) {
+                if (existing.maxRows == maxRows
+                    && existing.refreshInterval.equals(refreshInterval)
+                    && existing.fullRefreshInterval.equals(fullRefreshInterval)) {
+                    return existing;
+                }
+                // close() would remove the mirror from the map being updated, so only its refreshes are stopped
+                existing.refreshTask.cancel(false);
+            }
+            return new TableMirror(k, connection, docId, tableId, keyColumn, maxRows, refreshInterval, fullRefreshInterval);
+        });
+    }
+
+    /**
+     * Looks a row up by key, first refreshing the mirror in the calling thread if it is older than the given staleness.
+     *
+     * @param value The key value; numbers and their text form match each other
+     * @param maxStaleness The maximum age of the mirror the lookup accepts
+     * @return The row found, if any, with the schema and the refresh time of the load it was read from
+     * @throws CodaException if the mirror needed a refresh and it failed
+     * @throws IllegalStateException if the table has more rows than the mirror may hold
+     */
+    public Match lookup(Object value, Duration maxStaleness) throws CodaException {
+        lastAccessNanos = System.nanoTime();
+
+        if (isStale(maxStaleness)) {
+            refreshLock.lock();
+            try {
+                // another lookup may have refreshed the mirror while this one was waiting for the lock
+                if (isStale(maxStaleness)) {
+                    refresh();
+                }
+            } catch (CodaException | RuntimeException e) {
+                if (state == null) {
+                    // a mirror that never loaded is dropped, so the next lookup starts over with its own settings
+                    close();
+                }
+                throw e;
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+
+        State current = state;
+        String normalized = RowKeys.normalize(value);
+        return new Match(
+            normalized != null ? current.index.get(normalized) : null,
+            current.index.schema,
+            current.refreshedAt,
+            current.index.size()
+        );
+    }
+
+    /**
+     * @return The number of rows in the mirror
+     */
+    public int size() {
+        State current = state;
+        return current != null ? current.index.size() : 0;
+    }
+
+    /**
+     * Stops refreshing the mirror and drops it, so the next lookup of the table loads a new one.
+     */
+    public void close() {
+        refreshTask.cancel(false);
+        MIRRORS.remove(key, this);
+    }
+
+    private boolean isStale(Duration maxStaleness) {
+        State current = state;
+        return current == null || current.refreshedAt.plus(maxStaleness).isBefore(Instant.now());
+    }
+
+    private void refreshInBackground() {
+        if (System.nanoTime() - lastAccessNanos > fullRefreshInterval.toNanos()) {
+            LOGGER.debug("Dropping the idle mirror of table {} in doc {}", tableId, docId);
+            close();
+            return;
+        }
+
+        // never wait on a refresh already running for a lookup
+        if (state == null || !refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            LOGGER.warn("Unable to refresh the mirror of table {} in doc {}, serving the previous copy: {}", tableId, docId, e.getMessage());
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Applies the rows changed since the last refresh, or reloads the table when a full reload is due or when the sync
+     * token has been rejected. Must be called with the refresh lock held.
+     */
+    private void refresh() throws CodaException {
+        Instant start = Instant.now();
+
+        State current = state;
+        if (current == null || syncToken == null || current.fullyRefreshedAt.plus(fullRefreshInterval).isBefore(start)) {
+            reload(start);
+            return;
+        }
+
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(docId, tableId), Map.of("limit", PAGE_SIZE, "syncToken", syncToken)),
+            ROWS_PAGE
+        );
+
+        int changed = 0;
+        try {
+            while (pager.hasNext()) {
+                for (CodaRow row : pager.next()) {
+                    current.index.apply(row);
+                    changed++;
+                }
+            }
+        } catch (IllegalStateException e) {
+            // the rows already applied went over the bound, so the mirror is dropped rather than served half-updated
+            close();
+            throw e;
+        } catch (CodaException e) {
+            if (e.getStatusCode() == null || e.getStatusCode() != 400 && e.getStatusCode() != 410) {
+                throw e;
+            }
+            LOGGER.debug("Sync token of table {} in doc {} rejected, reloading it", tableId, docId);
+            reload(start);
+            return;
+        }
+
+        if (pager.getNextSyncToken() != null) {
+            syncToken = pager.getNextSyncToken();
+        }
+        state = new State(current.index, start, current.fullyRefreshedAt);
+        evictLeastRecentlyUsed();
+        LOGGER.debug("Applied {} changed rows to the mirror of table {} in doc {}", changed, tableId, docId);
+    }
+
+    private void reload(Instant start) throws CodaException {
+        List<CodaColumn> columns = new ArrayList<>();
+        CodaPager<CodaColumn> columnPager = new CodaPager<>(connection, CodaEndpoints.columns(docId, tableId), COLUMNS_PAGE);
+        while (columnPager.hasNext()) {
+            columns.addAll(columnPager.next());
+        }
+
+        String keyColumnId = columns.stream()
+            .filter(column -> keyColumn.equals(column.getId()) || keyColumn.equals(column.getName()))
+            .map(CodaColumn::getId)
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Key column '" + keyColumn + "' does not exist in table " + tableId));
+
+        Index loaded = new Index(RowSchema.of(columns), keyColumnId, maxRows, tableId);
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows(docId, tableId), Map.of("limit", PAGE_SIZE)),
+            ROWS_PAGE
+        );
+        while (pager.hasNext()) {
+            for (CodaRow row : pager.next()) {
+                loaded.apply(row);
+            }
+        }
+
+        state = new State(loaded, start, start);
+        syncToken = pager.getNextSyncToken();
+        evictLeastRecentlyUsed();
+        LOGGER.debug("Loaded {} rows into the mirror of table {} in doc {}", loaded.size(), tableId, docId);
+    }
+
+    /**
+     * Drops the other mirrors of the worker, least recently used first, until all of them hold no more rows than the
+     * budget of the worker. This mirror is kept even when it is alone over the budget, as it is bounded by its own
+     * maximum number of rows.
+     */
+    private void evictLeastRecentlyUsed() {
+        synchronized (MIRRORS) {
+            long total = MIRRORS.values().stream().mapToLong(TableMirror::size).sum();
+            if (total <= MAX_WORKER_ROWS) {
+                return;
+            }
+
+            List<TableMirror> others = MIRRORS.values().stream()
+                .filter(mirror -> mirror != this)
+                .sorted(Comparator.comparingLong(mirror -> mirror.lastAccessNanos))
+                .toList();
+            for (TableMirror mirror : others) {
+                if (total <= MAX_WORKER_ROWS) {
+                    return;
+                }
+                total -= mirror.size();
+                LOGGER.debug("Dropping the mirror of table {} in doc {} to keep the mirrors of the worker within {} rows",
+                    mirror.tableId, mirror.docId, MAX_WORKER_ROWS);
+                mirror.close();
+            }
+        }
+    }
+
+    /**
+     * The row found by a lookup, or null if no row has its key, with the schema to convert it to a record, and the
+     * start of the refresh and the size of the load it was read from.
+     */
+    public record Match(CodaRow row, RowSchema schema, Instant refreshedAt, int size) {
+    }
+
+    /**
+     * A loaded index with the times of its last refresh and of its full load, replaced as a whole by each refresh.
+     */
+    private record State(Index index, Instant refreshedAt, Instant fullyRefreshedAt) {
+    }
+
+    /**
+     * The rows of one full load by ID, and the IDs of the rows by key, as several rows can have the same key. Changed
+     * rows are applied in place by a single refreshing thread while lookups read concurrently.
+     */
+    private static class Index {
+        private final RowSchema schema;
+        private final String keyColumnId;
+        private final int maxRows;
+        private final String tableId;
+        private final Map<String, CodaRow> rowsById = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> rowIdsByKey = new ConcurrentHashMap<>();
+
+        Index(RowSchema schema, String keyColumnId, int maxRows, String tableId) {
+            this.schema = schema;
+            this.keyColumnId = keyColumnId;
+            this.maxRows = maxRows;
+            this.tableId = tableId;
+        }
+
+        /**
+         * @return The row with the given key that comes first in the table, or null if there is none
+         */
+        CodaRow get(String key) {
+            Set<String> rowIds = rowIdsByKey.get(key);
+            if (rowIds == null) {
+                return null;
+            }
+
+            CodaRow first = null;
+            for (String rowId : rowIds) {
+                CodaRow row = rowsById.get(rowId);
+                if (row != null && (first == null || position(row) < position(first))) {
+                    first = row;
+                }
+            }
+            return first;
+        }
+
+        int size() {
+            return rowsById.size();
+        }
+
+        void apply(CodaRow row) {
+            CodaRow previous = rowsById.get(row.getId());
+            // a row already seen with a later update wins over an older copy of it
+            if (previous != null && isOlder(row, previous)) {
+                return;
+            }
+
+            String previousKey = previous != null ? keyOf(previous) : null;
+            String newKey = keyOf(row);
+            if (previousKey != null && !previousKey.equals(newKey)) {
+                // only this row leaves the key, the other rows with the same key stay indexed
+                rowIdsByKey.computeIfPresent(previousKey, (key, rowIds) -> {
+                    rowIds.remove(row.getId());
+                    return rowIds.isEmpty() ? null : rowIds;
+                });
+            }
+
+            if (newKey == null) {
+                rowsById.remove(row.getId());
+                return;
+            }
+            if (previous == null && rowsById.size() >= maxRows) {
+                throw new IllegalStateException(String.format(
+                    "Table %s has more than %d rows with a key, the most a mirror holds; raise maxRows if the worker has the memory for it",
+                    tableId, maxRows
+                ));
+            }
+            rowsById.put(row.getId(), row);
+            rowIdsByKey.computeIfAbsent(newKey, key -> ConcurrentHashMap.newKeySet()).add(row.getId());
+        }
+
+        private String keyOf(CodaRow row) {
+            return row.getValues() != null ? RowKeys.normalize(row.getValues().get(keyColumnId)) : null;
+        }
+
+        private static int position(CodaRow row) {
+            return row.getIndex() != null ? row.getIndex() : Integer.MAX_VALUE;
+        }
+
+        private static boolean isOlder(CodaRow row, CodaRow than) {
+            if (row.getUpdatedAt() == null || than.getUpdatedAt() == null) {
+                return false;
+            }
+            return Instant.parse(row.getUpdatedAt()).isBefore(Instant.parse(than.getUpdatedAt()));
+        }
+    }
+}
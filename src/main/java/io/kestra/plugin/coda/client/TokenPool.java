@@ -0,0 +1,302 @@
+package io.kestra.plugin.coda.client;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The API tokens a connection spreads its calls over. The API rate limits each token separately, so a pool of the
+ * tokens of several service accounts has the throughput of all of them.
+ * <p>
+ * Every attempt takes the token with the most budget left. The budget of a token is estimated by a bucket refilled at
+ * the documented rate of the API, and emptied when the API answers 429. A rate-limited token sits out for the
+ * Retry-After delay, or an exponential backoff when there is none, while the other tokens keep serving. A token
+ * rejected with 401 is taken out of rotation for {@link #REVOKED_QUARANTINE}, then given another chance.
+ * <p>
+ * The state of a token is shared by every connection of the worker to the same API, since they share its rate limit.
+ * It is kept under a SHA-256 digest of the API and the token, so the token itself is only held by the pools of the
+ * connections using it. A state that was not used for {@value #IDLE_MINUTES} minutes and no longer holds a token back
+ * is dropped, so the tokens seen over the life of the worker do not pile up.
+ */
+public class TokenPool {
+    static final Duration REVOKED_QUARANTINE = Duration.ofMinutes(10);
+    static final int IDLE_MINUTES = 15;
+
+    // the API allows about 100 requests per 6 seconds per token
+    private static final double BURST = 100;
+    private static final double PERMITS_PER_NANO = BURST / TimeUnit.SECONDS.toNanos(6);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(60);
+    // the fingerprints are 64 bits of the digest, enough to tell the tokens of a worker apart
+    private static final int FINGERPRINT_LENGTH = 16;
+
+    private static final long IDLE_NANOS = Duration.ofMinutes(IDLE_MINUTES).toNanos();
+    private static final long SWEEP_INTERVAL_NANOS = Duration.ofMinutes(1).toNanos();
+    private static final Map<String, TokenState> STATES = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_SWEEP = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    private final List<Token> tokens;
+    private final String fingerprint;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private TokenPool(List<Token> tokens, String fingerprint) {
+        this.tokens = tokens;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * Returns the pool of the given tokens, sharing the state of each token with the other pools of the same API.
+     *
+     * @param baseUrl The base URL of the API
+     * @param apiTokens The tokens, duplicates are ignored
+     */
+    public static TokenPool of(String baseUrl, List<String> apiTokens) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(apiTokens));
+        if (distinct.isEmpty()) {
+            throw new IllegalArgumentException("At least one API token is required");
+        }
+
+        long now = System.nanoTime();
+        List<Token> tokens = distinct.stream()
+            .map(token -> new Token(token, STATES.computeIfAbsent(sha256(baseUrl + "\n" + token), k -> new TokenState())))
+            .toList();
+        tokens.forEach(token -> token.state.lastUsedNanos = now);
+
+        long nextSweep = NEXT_SWEEP.get();
+        if (now - nextSweep >= 0 && NEXT_SWEEP.compareAndSet(nextSweep, now + SWEEP_INTERVAL_NANOS)) {
+            sweep(now);
+        }
+
+        // a single token keeps the fingerprint of the token, so guards and mirrors keep their scope
+        String fingerprint = distinct.size() == 1
+            ? tokens.getFirst().getFingerprint()
+            : fingerprint(String.join("\n", distinct.stream().sorted().toList()));
+
+        return new TokenPool(tokens, fingerprint);
+    }
+
+    /**
+     * Drops the states not used for {@value #IDLE_MINUTES} minutes that no longer hold their token back. A pool that
+     * still holds a dropped state keeps using it, the next pools start from a fresh one.
+     */
+    static void sweep(long now) {
+        STATES.values().removeIf(state -> now - state.lastUsedNanos > IDLE_NANOS && !state.holdsBack(now));
+    }
+
+    /**
+     * @return The number of token states kept by the worker
+     */
+    static int size() {
+        return STATES.size();
+    }
+
+    /**
+     * @return An identifier of the value that does not reveal it: the start of its SHA-256 digest
+     */
+    static String fingerprint(String value) {
+        return sha256(value).substring(0, FINGERPRINT_LENGTH);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return An identifier of the set of tokens that does not reveal them
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * Picks the token of the next attempt and takes one request from its budget: the token with the most budget left
+     * among those in rotation and not sitting out, or the first one back when they all sit out. When every token was
+     * rejected, they are tried in turn, so the caller gets the authentication error of the API.
+     */
+    Token acquire() {
+        long now = System.nanoTime();
+        int start = Math.floorMod(next.getAndIncrement(), tokens.size());
+
+        Token best = null;
+        double bestScore = 0;
+        Token soonest = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            // ties go to the next token in turn, so equal tokens are used evenly
+            Token token = tokens.get((start + i) % tokens.size());
+            if (token.isRevoked(now)) {
+                continue;
+            }
+
+            long wait = token.waitNanos(now);
+            if (wait == 0) {
+                double score = token.budget(now);
+                if (best == null || score > bestScore) {
+                    best = token;
+                    bestScore = score;
+                }
+            } else if (soonest == null || wait < soonest.waitNanos(now)) {
+                soonest = token;
+            }
+        }
+
+        Token picked = best != null ? best : soonest != null ? soonest : tokens.get(start);
+        picked.take(now);
+        return picked;
+    }
+
+    /**
+     * Takes a token rejected by the API out of rotation.
+     *
+     * @return Whether another token of the pool is still in rotation
+     */
+    boolean revoke(Token token) {
+        long now = System.nanoTime();
+        token.revoke(now);
+        return tokens.stream().anyMatch(other -> !other.isRevoked(now));
+    }
+
+    /**
+     * One API token of a pool, and the state of its rate limit shared with the other pools.
+     */
+    static class Token {
+        private final String value;
+        private final String fingerprint;
+        private final TokenState state;
+
+        Token(String value, TokenState state) {
+            this.value = value;
+            this.fingerprint = fingerprint(value);
+            this.state = state;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return The estimated number of requests the token can still make right away
+         */
+        double budget(long now) {
+            return state.budget(now);
+        }
+
+        void take(long now) {
+            state.take(now);
+        }
+
+        /**
+         * @return The time until the token may be used again after being rate limited, in nanoseconds
+         */
+        long waitNanos(long now) {
+            return state.waitNanos(now);
+        }
+
+        /**
+         * Makes the token sit out after a 429 response.
+         *
+         * @param retryAfterSeconds The Retry-After delay of the response, or null to back off exponentially
+         * @return The time the token sits out, in nanoseconds
+         */
+        long rateLimited(Integer retryAfterSeconds) {
+            return state.rateLimited(retryAfterSeconds);
+        }
+
+        void succeeded() {
+            state.succeeded();
+        }
+
+        void revoke(long now) {
+            state.revoke(now);
+        }
+
+        boolean isRevoked(long now) {
+            return state.isRevoked(now);
+        }
+    }
+
+    /**
+     * The state of the rate limit of one token on one API, as observed by the worker. It does not hold the token.
+     */
+    private static class TokenState {
+        private double budget = BURST;
+        private long lastRefill = System.nanoTime();
+        private long coolingUntil;
+        private int strikes;
+        private long revokedUntil;
+        private boolean revoked;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        synchronized double budget(long now) {
+            budget = Math.min(BURST, budget + (now - lastRefill) * PERMITS_PER_NANO);
+            lastRefill = now;
+            return budget;
+        }
+
+        synchronized void take(long now) {
+            budget(now);
+            budget = Math.max(0, budget - 1);
+            lastUsedNanos = now;
+        }
+
+        synchronized long waitNanos(long now) {
+            return Math.max(0, coolingUntil - now);
+        }
+
+        synchronized long rateLimited(Integer retryAfterSeconds) {
+            long delay = retryAfterSeconds != null
+                ? TimeUnit.SECONDS.toNanos(retryAfterSeconds)
+                : Math.min(TimeUnit.SECONDS.toNanos(1L << Math.min(strikes, 30)), MAX_BACKOFF_NANOS);
+            strikes++;
+
+            long now = System.nanoTime();
+            budget = 0;
+            lastRefill = now;
+            coolingUntil = Math.max(coolingUntil, now + delay);
+            return delay;
+        }
+
+        synchronized void succeeded() {
+            strikes = 0;
+            revoked = false;
+        }
+
+        synchronized void revoke(long now) {
+            revoked = true;
+            revokedUntil = now + REVOKED_QUARANTINE.toNanos();
+        }
+
+        synchronized boolean isRevoked(long now) {
+            return revoked && now - revokedUntil < 0;
+        }
+
+        /**
+         * @return Whether the token still sits out, so that forgetting the state would let it be used too early
+         */
+        synchronized boolean holdsBack(long now) {
+            return waitNanos(now) > 0 || isRevoked(now);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.kestra.plugin.coda.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Exports request traces as OpenTelemetry spans when the OpenTelemetry API is provided by the worker, and does
+ * nothing otherwise. The OpenTelemetry classes are only loaded when they are available.
+ */
+public final class Tracing {
+    private static final Logger LOGGER = LoggerFactory.getLogger(Tracing.class);
+    private static final boolean AVAILABLE = isAvailable();
+
+    private Tracing() {
+    }
+
+    static void export(RequestTrace trace) {
+        if (!AVAILABLE) {
+            return;
+        }
+
+        try {
+            OpenTelemetrySpans.record(trace);
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.debug("Unable to export the span of a Coda API call", e);
+        }
+    }
+
+    /**
+     * Makes the tasks submitted to an executor run in the trace context of the thread submitting them, so that the
+     * calls made from a pool of threads are children of the span of the task run instead of new root traces.
+     *
+     * @return The wrapped executor, or the executor itself when OpenTelemetry is not available
+     */
+    public static ExecutorService propagateContext(ExecutorService executor) {
+        if (!AVAILABLE) {
+            return executor;
+        }
+
+        try {
+            return OpenTelemetrySpans.propagateContext(executor);
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.debug("Unable to propagate the trace context to an executor", e);
+            return executor;
+        }
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("io.opentelemetry.api.GlobalOpenTelemetry", false, Tracing.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+}
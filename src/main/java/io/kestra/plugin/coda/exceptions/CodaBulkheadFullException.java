@@ -0,0 +1,11 @@
+package io.kestra.plugin.coda.exceptions;
+
+/**
+ * Exception thrown when too many calls to the same Coda document are already in flight
+ * and no slot became available within the configured wait time.
+ */
+public class CodaBulkheadFullException extends CodaException {
+    public CodaBulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package io.kestra.plugin.coda.exceptions;
+
+/**
+ * Exception thrown without calling the Coda API when the circuit breaker of a document is open,
+ * because recent calls to that document mostly failed or were too slow.
+ * Callers should back off rather than retry immediately.
+ */
+public class CodaCircuitOpenException extends CodaException {
+    public CodaCircuitOpenException(String message) {
+        super(message);
+    }
+}
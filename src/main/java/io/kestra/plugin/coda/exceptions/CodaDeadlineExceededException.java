@@ -0,0 +1,14 @@
+package io.kestra.plugin.coda.exceptions;
+
+/**
+ * Exception thrown when the overall deadline of a task is reached before a Coda API call could complete.
+ */
+public class CodaDeadlineExceededException extends CodaException {
+    public CodaDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public CodaDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,39 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.plugin.coda.models.CodaRow;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes rows as an Avro object container file, flushing a compressed block every {@code blockSize} bytes.
+ */
+class AvroRowWriter implements RowFileWriter {
+    private static final int MAX_SYNC_INTERVAL = 1 << 30;
+
+    private final RowSchema schema;
+    private final DataFileWriter<GenericRecord> writer;
+
+    AvroRowWriter(RowSchema schema, Path path, long blockSize) throws IOException {
+        this.schema = schema;
+        this.writer = new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(schema.getAvroSchema()))
+            .setCodec(CodecFactory.deflateCodec(CodecFactory.DEFAULT_DEFLATE_LEVEL))
+            .setSyncInterval((int) Math.max(DataFileConstants.DEFAULT_SYNC_INTERVAL, Math.min(blockSize, MAX_SYNC_INTERVAL)));
+        this.writer.create(schema.getAvroSchema(), path.toFile());
+    }
+
+    @Override
+    public void write(CodaRow row) throws IOException {
+        writer.append(schema.toAvroRecord(row));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
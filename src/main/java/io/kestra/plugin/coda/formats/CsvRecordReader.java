@@ -0,0 +1,43 @@
+package io.kestra.plugin.coda.formats;
+
+import de.siegmar.fastcsv.reader.CsvReader;
+import de.siegmar.fastcsv.reader.NamedCsvRecord;
+import io.kestra.core.serializers.FileSerde;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads CSV files with a header line. Every value is read as a string, Coda parses it according to the column format.
+ */
+class CsvRecordReader implements RecordReader {
+    private final CsvReader<NamedCsvRecord> reader;
+    private final Iterator<NamedCsvRecord> iterator;
+
+    CsvRecordReader(InputStream input, char fieldSeparator) {
+        this.reader = CsvReader.builder()
+            .fieldSeparator(fieldSeparator)
+            .ofNamedCsvRecord(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE));
+        this.iterator = reader.iterator();
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        return new LinkedHashMap<>(iterator.next().getFieldsAsMap());
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
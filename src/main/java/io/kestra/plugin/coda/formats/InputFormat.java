@@ -0,0 +1,10 @@
+package io.kestra.plugin.coda.formats;
+
+/**
+ * File formats records can be read from in internal storage.
+ */
+public enum InputFormat {
+    CSV,
+    ION,
+    JSON
+}
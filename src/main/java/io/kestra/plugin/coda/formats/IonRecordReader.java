@@ -0,0 +1,43 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.core.serializers.FileSerde;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads ION files, the default format of Kestra internal storage.
+ */
+class IonRecordReader implements RecordReader {
+    private final BufferedReader reader;
+    private final Iterator<Object> iterator;
+
+    IonRecordReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+        this.iterator = FileSerde.readAll(reader).toIterable().iterator();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> next() throws IOException {
+        if (!iterator.hasNext()) {
+            return null;
+        }
+
+        Object record = iterator.next();
+        if (!(record instanceof Map)) {
+            throw new IOException("Expected an ION struct but got " + (record == null ? "null" : record.getClass().getSimpleName()));
+        }
+        return (Map<String, Object>) record;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,33 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.models.CodaRow;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes rows as ION, the default format of Kestra internal storage.
+ */
+class IonRowWriter implements RowFileWriter {
+    private final RowSchema schema;
+    private final OutputStream output;
+
+    IonRowWriter(RowSchema schema, Path path) throws IOException {
+        this.schema = schema;
+        this.output = new BufferedOutputStream(Files.newOutputStream(path), FileSerde.BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(CodaRow row) throws IOException {
+        FileSerde.write(output, schema.toRecord(row));
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
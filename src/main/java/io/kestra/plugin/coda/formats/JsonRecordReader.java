@@ -0,0 +1,42 @@
+package io.kestra.plugin.coda.formats;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Reads newline-delimited JSON files, skipping blank lines.
+ */
+class JsonRecordReader implements RecordReader {
+    private static final ObjectReader RECORD_READER = JacksonMapper.ofJson().readerFor(new TypeReference<Map<String, Object>>() {});
+
+    private final BufferedReader reader;
+
+    JsonRecordReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+    }
+
+    @Override
+    public Map<String, Object> next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return RECORD_READER.readValue(line);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,39 @@
+package io.kestra.plugin.coda.formats;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.coda.models.CodaRow;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes rows as newline-delimited JSON.
+ */
+class JsonRowWriter implements RowFileWriter {
+    private static final ObjectWriter RECORD_WRITER = JacksonMapper.ofJson().writer();
+
+    private final RowSchema schema;
+    private final Writer writer;
+
+    JsonRowWriter(RowSchema schema, Path path) throws IOException {
+        this.schema = schema;
+        this.writer = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(CodaRow row) throws IOException {
+        writer.write(RECORD_WRITER.writeValueAsString(schema.toRecord(row)));
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
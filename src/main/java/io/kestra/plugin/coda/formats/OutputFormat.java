@@ -0,0 +1,20 @@
+package io.kestra.plugin.coda.formats;
+
+import lombok.Getter;
+
+/**
+ * File formats rows can be written to in internal storage.
+ */
+@Getter
+public enum OutputFormat {
+    ION(".ion"),
+    JSON(".jsonl"),
+    AVRO(".avro"),
+    PARQUET(".parquet");
+
+    private final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+}
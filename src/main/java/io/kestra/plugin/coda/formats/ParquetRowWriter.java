@@ -0,0 +1,42 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.plugin.coda.models.CodaRow;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.avro.AvroParquetWriter;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalOutputFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes rows as a Snappy-compressed Parquet file, closing a row group every {@code rowGroupSize} bytes.
+ */
+class ParquetRowWriter implements RowFileWriter {
+    private final RowSchema schema;
+    private final ParquetWriter<GenericRecord> writer;
+
+    ParquetRowWriter(RowSchema schema, Path path, long rowGroupSize) throws IOException {
+        this.schema = schema;
+        this.writer = AvroParquetWriter.<GenericRecord>builder(new LocalOutputFile(path))
+            .withSchema(schema.getAvroSchema())
+            .withConf(new PlainParquetConfiguration())
+            .withCompressionCodec(CompressionCodecName.SNAPPY)
+            .withRowGroupSize(rowGroupSize)
+            .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+            .build();
+    }
+
+    @Override
+    public void write(CodaRow row) throws IOException {
+        writer.write(schema.toAvroRecord(row));
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
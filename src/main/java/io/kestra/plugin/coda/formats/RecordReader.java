@@ -0,0 +1,36 @@
+package io.kestra.plugin.coda.formats;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Reads records from a file one at a time, without loading the whole file in memory.
+ */
+public interface RecordReader extends Closeable {
+    /**
+     * Reads the next record.
+     *
+     * @return The next record, or null when the end of the file is reached
+     * @throws IOException if the record cannot be read
+     */
+    Map<String, Object> next() throws IOException;
+
+    /**
+     * Opens a reader for the given format.
+     *
+     * @param format The input format
+     * @param input The file content
+     * @param fieldSeparator The field separator, for CSV files
+     * @return The reader
+     * @throws IOException if the file cannot be opened
+     */
+    static RecordReader open(InputFormat format, InputStream input, char fieldSeparator) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvRecordReader(input, fieldSeparator);
+            case ION -> new IonRecordReader(input);
+            case JSON -> new JsonRecordReader(input);
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.plugin.coda.models.CodaRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes Coda rows to a local file, one row at a time.
+ */
+public interface RowFileWriter extends Closeable {
+    /**
+     * Appends a row to the file.
+     *
+     * @param row The row to write
+     * @throws IOException if the row cannot be written
+     */
+    void write(CodaRow row) throws IOException;
+
+    /**
+     * Opens a writer for the given format.
+     *
+     * @param format The output format
+     * @param schema The schema of the rows
+     * @param path The file to write to
+     * @param blockSize The maximum size in bytes of the row groups (Parquet) or blocks (Avro) buffered before flushing
+     * @return The writer
+     * @throws IOException if the file cannot be opened
+     */
+    static RowFileWriter open(OutputFormat format, RowSchema schema, Path path, long blockSize) throws IOException {
+        return switch (format) {
+            case ION -> new IonRowWriter(schema, path);
+            case JSON -> new JsonRowWriter(schema, path);
+            case AVRO -> new AvroRowWriter(schema, path, blockSize);
+            case PARQUET -> new ParquetRowWriter(schema, path, blockSize);
+        };
+    }
+}
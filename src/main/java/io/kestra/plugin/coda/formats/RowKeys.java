@@ -0,0 +1,46 @@
+package io.kestra.plugin.coda.formats;
+
+import java.math.BigDecimal;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes the values rows are matched on, so that the tasks joining or looking up rows by key agree on which values
+ * are equal.
+ */
+public final class RowKeys {
+    // a plain decimal number, without the leading zeros of codes
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][-+]?[0-9]+)?");
+
+    private RowKeys() {
+    }
+
+    /**
+     * Normalizes a key value, so that numbers match by value whether they are read from a cell or from text, e.g.
+     * {@code 42.0}, {@code "42"} and {@code "42.0"}. Text with leading zeros, such as {@code "007"}, is a code rather
+     * than a number and is kept as is.
+     *
+     * @return The normalized key, or null for an empty value
+     */
+    public static String normalize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number number) {
+            return normalizeNumber(number.toString());
+        }
+
+        String text = value.toString();
+        if (text.isEmpty()) {
+            return null;
+        }
+        return NUMBER.matcher(text).matches() ? normalizeNumber(text) : text;
+    }
+
+    private static String normalizeNumber(String number) {
+        try {
+            return new BigDecimal(number).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return number;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.kestra.plugin.coda.formats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.coda.models.CodaColumn;
+import io.kestra.plugin.coda.models.CodaRow;
+import lombok.Getter;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.util.*;
+
+/**
+ * Flat record schema of a Coda table, derived from its columns.
+ * <p>
+ * Each record holds the row metadata ({@code _id}, {@code _name}, {@code _index}, {@code _createdAt},
+ * {@code _updatedAt}) followed by one field per column, named after the column with the characters that are not
+ * letters, digits or underscores replaced and a suffix for names already taken. Column values are converted to a string, double or boolean
+ * according to the column format, so the same schema can back row-oriented (ION, JSON) and columnar (Avro, Parquet)
+ * files.
+ * <p>
+ * When the references of the rows are expanded, a {@code _parent} field holds the parent row of hierarchical tables.
+ */
+@Getter
+public class RowSchema {
+    public static final String ID_FIELD = "_id";
+    public static final String NAME_FIELD = "_name";
+    public static final String INDEX_FIELD = "_index";
+    public static final String CREATED_AT_FIELD = "_createdAt";
+    public static final String UPDATED_AT_FIELD = "_updatedAt";
+    public static final String PARENT_FIELD = "_parent";
+
+    private static final Set<String> NUMBER_TYPES = Set.of("number", "percent", "slider", "scale");
+    private static final Set<String> BOOLEAN_TYPES = Set.of("checkbox");
+
+    private final List<Field> fields;
+    private final Schema avroSchema;
+
+    private RowSchema(List<Field> fields) {
+        this.fields = fields;
+        this.avroSchema = buildAvroSchema(fields);
+    }
+
+    /**
+     * Derives a schema from the columns of a table.
+     *
+     * @param columns The columns of the table, in display order
+     * @return The schema
+     */
+    public static RowSchema of(List<CodaColumn> columns) {
+        return of(columns, false);
+    }
+
+    /**
+     * Derives a schema from the columns of a table, optionally followed by the {@code _parent} field that holds the
+     * parent row set by {@link io.kestra.plugin.coda.client.RowReferenceResolver}.
+     *
+     * @param columns The columns of the table, in display order
+     * @param withParent Whether to add the {@code _parent} field
+     * @return The schema
+     */
+    public static RowSchema of(List<CodaColumn> columns, boolean withParent) {
+        Set<String> usedNames = new HashSet<>(List.of(ID_FIELD, NAME_FIELD, INDEX_FIELD, CREATED_AT_FIELD, UPDATED_AT_FIELD));
+        if (withParent) {
+            usedNames.add(PARENT_FIELD);
+        }
+        List<Field> fields = new ArrayList<>(columns.size() + 1);
+
+        for (CodaColumn column : columns) {
+            String fieldName = uniqueName(sanitize(column.getName() != null ? column.getName() : column.getId()), usedNames);
+            fields.add(new Field(column.getId(), column.getName(), fieldName, kindOf(column)));
+        }
+        if (withParent) {
+            fields.add(new Field(PARENT_FIELD, PARENT_FIELD, PARENT_FIELD, Kind.STRING));
+        }
+
+        return new RowSchema(Collections.unmodifiableList(fields));
+    }
+
+    /**
+     * Converts a row to a record keyed by the field names, for row-oriented formats.
+     */
+    public Map<String, Object> toRecord(CodaRow row) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put(ID_FIELD, row.getId());
+        record.put(NAME_FIELD, row.getName());
+        record.put(INDEX_FIELD, row.getIndex());
+        record.put(CREATED_AT_FIELD, row.getCreatedAt());
+        record.put(UPDATED_AT_FIELD, row.getUpdatedAt());
+
+        for (Field field : fields) {
+            record.put(field.getFieldName(), field.convert(row));
+        }
+
+        return record;
+    }
+
+    /**
+     * @return The name of the field of the column with the given ID
+     */
+    public String fieldName(String columnId) {
+        return fields.stream()
+            .filter(field -> field.getColumnId().equals(columnId))
+            .map(Field::getFieldName)
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown column " + columnId));
+    }
+
+    /**
+     * Converts a row to an Avro record keyed by the field names, for columnar formats.
+     */
+    public GenericRecord toAvroRecord(CodaRow row) {
+        GenericRecord record = new GenericData.Record(avroSchema);
+        record.put(ID_FIELD, row.getId());
+        record.put(NAME_FIELD, row.getName());
+        record.put(INDEX_FIELD, row.getIndex());
+        record.put(CREATED_AT_FIELD, row.getCreatedAt());
+        record.put(UPDATED_AT_FIELD, row.getUpdatedAt());
+
+        for (Field field : fields) {
+            record.put(field.getFieldName(), field.convert(row));
+        }
+
+        return record;
+    }
+
+    private static Schema buildAvroSchema(List<Field> fields) {
+        SchemaBuilder.FieldAssembler<Schema> assembler = SchemaBuilder.record("CodaRow")
+            .namespace("io.kestra.plugin.coda")
+            .fields()
+            .requiredString(ID_FIELD)
+            .optionalString(NAME_FIELD)
+            .optionalInt(INDEX_FIELD)
+            .optionalString(CREATED_AT_FIELD)
+            .optionalString(UPDATED_AT_FIELD);
+
+        for (Field field : fields) {
+            SchemaBuilder.FieldBuilder<Schema> builder = assembler.name(field.getFieldName());
+            if (field.getColumnName() != null) {
+                builder.doc(field.getColumnName());
+            }
+
+            assembler = switch (field.getKind()) {
+                case DOUBLE -> builder.type().optional().doubleType();
+                case BOOLEAN -> builder.type().optional().booleanType();
+                case STRING -> builder.type().optional().stringType();
+            };
+        }
+
+        return assembler.endRecord();
+    }
+
+    private static Kind kindOf(CodaColumn column) {
+        String type = column.valueType();
+        if (type == null || column.isArray()) {
+            return Kind.STRING;
+        }
+        if (NUMBER_TYPES.contains(type)) {
+            return Kind.DOUBLE;
+        }
+        if (BOOLEAN_TYPES.contains(type)) {
+            return Kind.BOOLEAN;
+        }
+        return Kind.STRING;
+    }
+
+    private static String sanitize(String name) {
+        String sanitized = name.replaceAll("[^A-Za-z0-9_]", "_");
+        if (sanitized.isEmpty() || Character.isDigit(sanitized.charAt(0))) {
+            sanitized = "c_" + sanitized;
+        }
+        return sanitized;
+    }
+
+    private static String uniqueName(String name, Set<String> usedNames) {
+        String candidate = name;
+        int suffix = 2;
+        while (!usedNames.add(candidate)) {
+            candidate = name + "_" + suffix++;
+        }
+        return candidate;
+    }
+
+    /**
+     * Type of a field value once converted.
+     */
+    public enum Kind {
+        STRING,
+        DOUBLE,
+        BOOLEAN
+    }
+
+    /**
+     * A column of the table mapped to a field of the record.
+     */
+    @Getter
+    public static class Field {
+        private final String columnId;
+        private final String columnName;
+        private final String fieldName;
+        private final Kind kind;
+
+        Field(String columnId, String columnName, String fieldName, Kind kind) {
+            this.columnId = columnId;
+            this.columnName = columnName;
+            this.fieldName = fieldName;
+            this.kind = kind;
+        }
+
+        /**
+         * Reads the value of this field from a row, whether its values are keyed by column ID or by column name.
+         */
+        public Object convert(CodaRow row) {
+            Map<String, Object> values = row.getValues();
+            if (values == null) {
+                return null;
+            }
+
+            Object value = values.containsKey(columnId) ? values.get(columnId) : values.get(columnName);
+            return convert(value);
+        }
+
+        Object convert(Object value) {
+            if (value == null) {
+                return null;
+            }
+
+            return switch (kind) {
+                case DOUBLE -> toDouble(value);
+                case BOOLEAN -> toBoolean(value);
+                case STRING -> toText(value);
+            };
+        }
+
+        private static Double toDouble(Object value) {
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            if (value instanceof String string && !string.isBlank()) {
+                try {
+                    return Double.parseDouble(string.trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private static Boolean toBoolean(Object value) {
+            if (value instanceof Boolean bool) {
+                return bool;
+            }
+            if (value instanceof String string && !string.isBlank()) {
+                return Boolean.parseBoolean(string.trim());
+            }
+            return null;
+        }
+
+        private static String toText(Object value) {
+            if (value instanceof String string) {
+                return string;
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                return value.toString();
+            }
+            try {
+                return JacksonMapper.ofJson().writeValueAsString(value);
+            } catch (JsonProcessingException e) {
+                return value.toString();
+            }
+        }
+    }
+}
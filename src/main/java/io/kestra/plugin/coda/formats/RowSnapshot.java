@@ -0,0 +1,318 @@
+package io.kestra.plugin.coda.formats;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+/**
+ * Compact snapshot of the rows of a table, to tell which rows were inserted, updated or deleted since it was taken.
+ * <p>
+ * Each row is recorded by a 64-bit hash of its ID and a 64-bit hash of its values, so comparing a row to the snapshot
+ * costs 16 bytes per row instead of a copy of the row. The file holds these entries sorted by ID hash, followed by the
+ * row IDs in the same order, which are only read to report deleted rows. It is memory-mapped: rows are looked up by
+ * binary search and only the pages touched are read.
+ * <p>
+ * Two row IDs with the same 64-bit hash would be taken for the same row, which is unlikely below billions of rows.
+ */
+public class RowSnapshot implements Closeable {
+    private static final int MAGIC = 0x52534e31;
+    private static final int HEADER_BYTES = 8;
+    private static final int ENTRY_BYTES = 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private RowSnapshot(FileChannel channel, ByteBuffer buffer, int size) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    /**
+     * @return A snapshot without rows, for the first comparison
+     */
+    public static RowSnapshot empty() {
+        return new RowSnapshot(null, ByteBuffer.allocate(0), 0);
+    }
+
+    /**
+     * Maps a snapshot file written by a {@link Builder}.
+     */
+    public static RowSnapshot open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a row snapshot: " + file);
+            }
+            return new RowSnapshot(channel, buffer, buffer.getInt(4));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The index of the row with the given ID hash, or -1 if the snapshot has no such row
+     */
+    public int find(long idHash) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = Long.compare(idHash(middle), idHash);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The hash of the values of the row at the given index
+     */
+    public long valuesHash(int index) {
+        return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    /**
+     * Reads the IDs of the rows whose index is not in the given set, in index order.
+     */
+    public void forEachMissing(BitSet seen, Consumer<String> consumer) {
+        int position = HEADER_BYTES + size * ENTRY_BYTES;
+        for (int i = 0; i < size; i++) {
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            position += 2;
+            if (!seen.get(i)) {
+                byte[] id = new byte[length];
+                buffer.get(position, id);
+                consumer.accept(new String(id, StandardCharsets.UTF_8));
+            }
+            position += length;
+        }
+    }
+
+    private long idHash(int index) {
+        return buffer.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public static long hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 64-bit FNV-1a hash, with the final mix of MurmurHash3 so that close inputs spread over the whole range.
+     */
+    public static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Set of row ID hashes in an open-addressing table of primitive longs, to track the rows of a run without boxing
+     * them. The table is kept between a quarter and half full, so it takes 16 to 32 bytes per hash.
+     */
+    public static class IdHashSet {
+        private long[] slots = new long[1024];
+        private boolean hasZero;
+        private int size;
+
+        /**
+         * @return Whether the hash was not in the set yet
+         */
+        public boolean add(long idHash) {
+            if (idHash == 0) {
+                // 0 marks the empty slots, so it is tracked apart
+                boolean added = !hasZero;
+                hasZero = true;
+                return added;
+            }
+
+            // the load factor stays at or below one half
+            if ((size + 1) * 2 > slots.length) {
+                resize();
+            }
+            if (!insert(slots, idHash)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private void resize() {
+            long[] resized = new long[slots.length * 2];
+            for (long slot : slots) {
+                if (slot != 0) {
+                    insert(resized, slot);
+                }
+            }
+            slots = resized;
+        }
+
+        private static boolean insert(long[] table, long idHash) {
+            int mask = table.length - 1;
+            // the hashes are already mixed, so their low bits are spread enough to pick the slot
+            int index = (int) idHash & mask;
+            while (table[index] != 0) {
+                if (table[index] == idHash) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            table[index] = idHash;
+            return true;
+        }
+    }
+
+    /**
+     * Collects the rows of a new snapshot in primitive arrays, about 16 bytes per row plus the row ID, and writes them
+     * sorted by ID hash.
+     */
+    public static class Builder {
+        private long[] idHashes = new long[1024];
+        private long[] valuesHashes = new long[1024];
+        private int[] idOffsets = new int[1024];
+        private byte[] ids = new byte[16 * 1024];
+        private int idsLength;
+        private int size;
+
+        public void add(String id, long idHash, long valuesHash) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xffff) {
+                throw new IllegalArgumentException("Row ID is too long: " + id);
+            }
+
+            if (size == idHashes.length) {
+                idHashes = Arrays.copyOf(idHashes, size * 2);
+                valuesHashes = Arrays.copyOf(valuesHashes, size * 2);
+                idOffsets = Arrays.copyOf(idOffsets, size * 2);
+            }
+            if (idsLength + 2 + bytes.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, idsLength + 2 + bytes.length));
+            }
+
+            idHashes[size] = idHash;
+            valuesHashes[size] = valuesHash;
+            idOffsets[size] = idsLength;
+            size++;
+
+            ids[idsLength++] = (byte) (bytes.length >>> 8);
+            ids[idsLength++] = (byte) bytes.length;
+            System.arraycopy(bytes, 0, ids, idsLength, bytes.length);
+            idsLength += bytes.length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Writes the snapshot. A row listed twice, as can happen when rows move while the table is paged, is kept once.
+         */
+        public void write(Path file) throws IOException {
+            sort();
+
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || idHashes[i] != idHashes[i - 1]) {
+                    unique++;
+                }
+            }
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(unique);
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || idHashes[i] != idHashes[i - 1]) {
+                        output.writeLong(idHashes[i]);
+                        output.writeLong(valuesHashes[i]);
+                    }
+                }
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || idHashes[i] != idHashes[i - 1]) {
+                        int length = ((ids[idOffsets[i]] & 0xff) << 8) | (ids[idOffsets[i] + 1] & 0xff);
+                        output.write(ids, idOffsets[i], 2 + length);
+                    }
+                }
+            }
+        }
+
+        // heap sort of the three arrays by ID hash, in place and without boxing
+        private void sort() {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i, size);
+            }
+            for (int end = size - 1; end > 0; end--) {
+                swap(0, end);
+                siftDown(0, end);
+            }
+        }
+
+        private void siftDown(int index, int end) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= end) {
+                    return;
+                }
+                if (child + 1 < end && idHashes[child + 1] > idHashes[child]) {
+                    child++;
+                }
+                if (idHashes[index] >= idHashes[child]) {
+                    return;
+                }
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long idHash = idHashes[i];
+            idHashes[i] = idHashes[j];
+            idHashes[j] = idHash;
+
+            long valuesHash = valuesHashes[i];
+            valuesHashes[i] = valuesHashes[j];
+            valuesHashes[j] = valuesHash;
+
+            int idOffset = idOffsets[i];
+            idOffsets[i] = idOffsets[j];
+            idOffsets[j] = idOffset;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package io.kestra.plugin.coda.formats;
+
+import io.kestra.core.serializers.FileSerde;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hash join of a stream of records against a build side keyed by a single value, with the build side held in memory
+ * up to a budget.
+ * <p>
+ * While the build side fits in the budget, probe records are joined and emitted as they come, in input order. Past
+ * the budget, the join turns into a grace hash join: build entries and then probe records are spread over partition
+ * files by key hash, and {@link #finish(Emitter)} joins one partition at a time, so only one partition of the build
+ * side is in memory at once. Records are then emitted grouped by partition.
+ * <p>
+ * A partition whose build entries exceed the budget on their own, as skewed keys make them, is split again with
+ * another hash, up to {@value #MAX_DEPTH} times. Past that, the keys share their hash code and cannot be split, and
+ * the join fails rather than load the partition whatever its size.
+ */
+public class SpillingHashJoin implements AutoCloseable {
+    private static final int PARTITIONS = 64;
+    static final int MAX_DEPTH = 3;
+    private static final long ENTRY_OVERHEAD = 64;
+    private static final long VALUE_OVERHEAD = 32;
+
+    private final Path directory;
+    private final long memoryBudget;
+
+    private Map<String, Map<String, Object>> entries = new HashMap<>();
+    private long estimatedSize = 0;
+
+    private Path[] buildFiles;
+    private OutputStream[] buildPartitions;
+    private Path[] probeFiles;
+    private OutputStream[] probePartitions;
+
+    /**
+     * @param directory The directory the partition files are written to when the build side is spilled
+     * @param memoryBudget The estimated size in bytes of build entries held in memory before spilling
+     */
+    public SpillingHashJoin(Path directory, long memoryBudget) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Adds an entry to the build side. When several entries have the same key, the first one wins.
+     *
+     * @param key The join key, never null
+     * @param values The values joined to the probe records with this key
+     * @throws IOException if the entry cannot be spilled to disk
+     */
+    public void build(String key, Map<String, Object> values) throws IOException {
+        if (isSpilled()) {
+            FileSerde.write(buildPartitions[partition(key)], Map.of("k", key, "v", values));
+            return;
+        }
+
+        if (entries.putIfAbsent(key, values) == null) {
+            estimatedSize += estimateSize(key, values);
+            if (estimatedSize > memoryBudget) {
+                spill();
+            }
+        }
+    }
+
+    /**
+     * Joins a probe record, or queues it in its partition file when the build side has been spilled.
+     *
+     * @param key The join key, or null to emit the record without a match
+     * @param record The probe record
+     * @param emitter Receives the record and its match, or null if no build entry has the key
+     * @throws IOException if the record cannot be written
+     */
+    public void probe(String key, Map<String, Object> record, Emitter emitter) throws IOException {
+        if (key == null || !isSpilled()) {
+            emitter.emit(record, key != null ? entries.get(key) : null);
+            return;
+        }
+
+        if (probePartitions == null) {
+            finishBuild();
+        }
+        Map<String, Object> queued = new LinkedHashMap<>();
+        queued.put("k", key);
+        queued.put("r", record);
+        FileSerde.write(probePartitions[partition(key)], queued);
+    }
+
+    /**
+     * Joins the probe records queued in partition files, if any. Must be called once after the last probe record.
+     *
+     * @param emitter Receives the record and its match, or null if no build entry has the key
+     * @throws IOException if a partition file cannot be read
+     * @throws IllegalStateException if a partition is still over the memory budget after {@value #MAX_DEPTH} splits
+     */
+    public void finish(Emitter emitter) throws IOException {
+        if (!isSpilled()) {
+            return;
+        }
+        if (probePartitions == null) {
+            finishBuild();
+        }
+        for (OutputStream partition : probePartitions) {
+            partition.close();
+        }
+
+        for (int i = 0; i < PARTITIONS; i++) {
+            join(buildFiles[i], probeFiles[i], 0, emitter);
+        }
+    }
+
+    /**
+     * Joins the probe records of a partition against its build entries, splitting the partition first if its build
+     * entries do not fit in the budget. Deletes the partition files.
+     */
+    @SuppressWarnings("unchecked")
+    private void join(Path buildFile, Path probeFile, int depth, Emitter emitter) throws IOException {
+        Map<String, Map<String, Object>> partitionEntries = new HashMap<>();
+        long partitionSize = 0;
+        try (InputStream input = Files.newInputStream(buildFile);
+             RecordReader reader = new IonRecordReader(input)) {
+            Map<String, Object> entry;
+            while ((entry = reader.next()) != null) {
+                String key = (String) entry.get("k");
+                Map<String, Object> values = (Map<String, Object>) entry.get("v");
+                if (partitionEntries.putIfAbsent(key, values) == null) {
+                    partitionSize += estimateSize(key, values);
+                    if (partitionSize > memoryBudget) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (partitionSize > memoryBudget) {
+            partitionEntries = null;
+            repartition(buildFile, probeFile, depth + 1, emitter);
+            return;
+        }
+
+        try (InputStream input = Files.newInputStream(probeFile);
+             RecordReader reader = new IonRecordReader(input)) {
+            Map<String, Object> queued;
+            while ((queued = reader.next()) != null) {
+                emitter.emit((Map<String, Object>) queued.get("r"), partitionEntries.get((String) queued.get("k")));
+            }
+        }
+
+        Files.deleteIfExists(buildFile);
+        Files.deleteIfExists(probeFile);
+    }
+
+    /**
+     * Splits an oversized partition over new partition files with the hash of the given depth, keeping the order of
+     * the entries so that the first entry of a key still wins, and joins each of them.
+     */
+    private void repartition(Path buildFile, Path probeFile, int depth, Emitter emitter) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException(String.format(
+                "A partition of the join holds more than %d bytes of entries after %d splits, its keys are too skewed to " +
+                    "split further; raise the memory budget",
+                memoryBudget, MAX_DEPTH
+            ));
+        }
+
+        Path[] subBuildFiles = split(buildFile, "join-build-", depth);
+        Path[] subProbeFiles = split(probeFile, "join-probe-", depth);
+        for (int i = 0; i < PARTITIONS; i++) {
+            join(subBuildFiles[i], subProbeFiles[i], depth, emitter);
+        }
+    }
+
+    private Path[] split(Path file, String prefix, int depth) throws IOException {
+        Path[] files = new Path[PARTITIONS];
+        OutputStream[] partitions = new OutputStream[PARTITIONS];
+        try {
+            for (int i = 0; i < PARTITIONS; i++) {
+                files[i] = Files.createTempFile(directory, prefix, ".ion");
+                partitions[i] = new BufferedOutputStream(Files.newOutputStream(files[i]), FileSerde.BUFFER_SIZE / 4);
+            }
+
+            try (InputStream input = Files.newInputStream(file);
+                 RecordReader reader = new IonRecordReader(input)) {
+                Map<String, Object> record;
+                while ((record = reader.next()) != null) {
+                    FileSerde.write(partitions[partition((String) record.get("k"), depth)], record);
+                }
+            }
+        } finally {
+            for (OutputStream partition : partitions) {
+                if (partition != null) {
+                    partition.close();
+                }
+            }
+        }
+
+        Files.deleteIfExists(file);
+        return files;
+    }
+
+    /**
+     * @return true if the build side exceeded the memory budget and has been written to partition files
+     */
+    public boolean isSpilled() {
+        return buildPartitions != null;
+    }
+
+    /**
+     * @return The number of build entries held in memory, 0 once spilled
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(buildPartitions);
+        closeAll(probePartitions);
+    }
+
+    private void spill() throws IOException {
+        buildFiles = new Path[PARTITIONS];
+        buildPartitions = new OutputStream[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            buildFiles[i] = Files.createTempFile(directory, "join-build-", ".ion");
+            buildPartitions[i] = new BufferedOutputStream(Files.newOutputStream(buildFiles[i]), FileSerde.BUFFER_SIZE / 4);
+        }
+
+        Map<String, Map<String, Object>> spilled = entries;
+        entries = new HashMap<>();
+        estimatedSize = 0;
+        for (Map.Entry<String, Map<String, Object>> entry : spilled.entrySet()) {
+            FileSerde.write(buildPartitions[partition(entry.getKey())], Map.of("k", entry.getKey(), "v", entry.getValue()));
+        }
+    }
+
+    private void finishBuild() throws IOException {
+        for (OutputStream partition : buildPartitions) {
+            partition.close();
+        }
+
+        probeFiles = new Path[PARTITIONS];
+        probePartitions = new OutputStream[PARTITIONS];
+        for (int i = 0; i < PARTITIONS; i++) {
+            probeFiles[i] = Files.createTempFile(directory, "join-probe-", ".ion");
+            probePartitions[i] = new BufferedOutputStream(Files.newOutputStream(probeFiles[i]), FileSerde.BUFFER_SIZE / 4);
+        }
+    }
+
+    private static int partition(String key) {
+        return Math.floorMod(key.hashCode(), PARTITIONS);
+    }
+
+    /**
+     * The partition of a key when splitting a partition at the given depth, from a mix of its hash code and the depth
+     * so that the keys of one partition spread over the new ones.
+     */
+    private static int partition(String key, int depth) {
+        int hash = key.hashCode() + depth * 0x9e3779b9;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, PARTITIONS);
+    }
+
+    private static long estimateSize(String key, Map<String, Object> values) {
+        long size = ENTRY_OVERHEAD + 2L * key.length();
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            size += VALUE_OVERHEAD + 2L * value.getKey().length();
+            if (value.getValue() instanceof CharSequence text) {
+                size += 2L * text.length();
+            }
+        }
+        return size;
+    }
+
+    private static void closeAll(OutputStream[] outputs) throws IOException {
+        if (outputs == null) {
+            return;
+        }
+        for (OutputStream output : outputs) {
+            output.close();
+        }
+    }
+
+    /**
+     * Receives the joined records.
+     */
+    @FunctionalInterface
+    public interface Emitter {
+        /**
+         * @param record The probe record
+         * @param match The values of the build entry with the same key, or null if there is none
+         */
+        void emit(Map<String, Object> record, Map<String, Object> match) throws IOException;
+    }
+}
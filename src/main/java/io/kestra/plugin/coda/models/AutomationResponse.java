@@ -0,0 +1,24 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Response returned when an automation is triggered. The automation runs asynchronously in Coda.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class AutomationResponse {
+    @Schema(
+        title = "Request ID",
+        description = "The ID of the automation run request"
+    )
+    @JsonProperty("requestId")
+    private String requestId;
+}
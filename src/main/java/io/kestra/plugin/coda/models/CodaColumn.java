@@ -1,5 +1,6 @@
 package io.kestra.plugin.coda.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -63,4 +64,31 @@ public class CodaColumn {
     )
     @JsonProperty("defaultValue")
     private Object defaultValue;
+
+    @Schema(
+        title = "Format",
+        description = "The format of the column, which carries the type of its values"
+    )
+    @JsonProperty("format")
+    private CodaColumnFormat format;
+
+    /**
+     * Returns the type of the values in this column, preferring the format type over the column type.
+     *
+     * @return The value type, or null if unknown
+     */
+    public String valueType() {
+        if (format != null && format.getType() != null) {
+            return format.getType();
+        }
+        return type;
+    }
+
+    /**
+     * @return true if the column holds a list of values
+     */
+    @JsonIgnore
+    public boolean isArray() {
+        return format != null && Boolean.TRUE.equals(format.getIsArray());
+    }
 }
@@ -0,0 +1,31 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Format of a column in a Coda table, describing the type of its values.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CodaColumnFormat {
+    @Schema(
+        title = "Format Type",
+        description = "The type of values in this column (text, number, checkbox, date, lookup, etc.)"
+    )
+    @JsonProperty("type")
+    private String type;
+
+    @Schema(
+        title = "Is Array",
+        description = "Whether the column holds a list of values"
+    )
+    @JsonProperty("isArray")
+    private Boolean isArray;
+}
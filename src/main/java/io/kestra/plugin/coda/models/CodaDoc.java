@@ -0,0 +1,59 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Represents a Coda document.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CodaDoc {
+    @Schema(
+        title = "Document ID",
+        description = "The unique identifier for this document"
+    )
+    @JsonProperty("id")
+    private String id;
+
+    @Schema(
+        title = "Document Name",
+        description = "The name of the document"
+    )
+    @JsonProperty("name")
+    private String name;
+
+    @Schema(
+        title = "Browser Link",
+        description = "The browser URL for this document"
+    )
+    @JsonProperty("browserLink")
+    private String browserLink;
+
+    @Schema(
+        title = "Workspace ID",
+        description = "The ID of the workspace containing this document"
+    )
+    @JsonProperty("workspaceId")
+    private String workspaceId;
+
+    @Schema(
+        title = "Folder ID",
+        description = "The ID of the folder containing this document"
+    )
+    @JsonProperty("folderId")
+    private String folderId;
+
+    @Schema(
+        title = "Updated At",
+        description = "Timestamp when the document was last updated"
+    )
+    @JsonProperty("updatedAt")
+    private String updatedAt;
+}
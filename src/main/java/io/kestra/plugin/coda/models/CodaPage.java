@@ -0,0 +1,52 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Represents a page of a Coda document.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CodaPage {
+    @Schema(
+        title = "Page ID",
+        description = "The unique identifier for this page"
+    )
+    @JsonProperty("id")
+    private String id;
+
+    @Schema(
+        title = "Page Name",
+        description = "The name of the page"
+    )
+    @JsonProperty("name")
+    private String name;
+
+    @Schema(
+        title = "Content Type",
+        description = "The type of content of the page, e.g. canvas or embed"
+    )
+    @JsonProperty("contentType")
+    private String contentType;
+
+    @Schema(
+        title = "Browser Link",
+        description = "The browser URL for this page"
+    )
+    @JsonProperty("browserLink")
+    private String browserLink;
+
+    @Schema(
+        title = "Updated At",
+        description = "Timestamp when the page was last updated"
+    )
+    @JsonProperty("updatedAt")
+    private String updatedAt;
+}
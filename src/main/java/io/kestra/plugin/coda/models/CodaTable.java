@@ -57,6 +57,13 @@ public class CodaTable {
     @JsonProperty("browserLink")
     private String browserLink;
 
+    @Schema(
+        title = "Row Count",
+        description = "The number of rows in the table"
+    )
+    @JsonProperty("rowCount")
+    private Integer rowCount;
+
     @Schema(
         title = "Created At",
         description = "Timestamp when the table was created"
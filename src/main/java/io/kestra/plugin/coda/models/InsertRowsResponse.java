@@ -0,0 +1,34 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/**
+ * Response returned when inserting or upserting rows into a Coda table.
+ * The mutation is processed asynchronously by Coda.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InsertRowsResponse {
+    @Schema(
+        title = "Request ID",
+        description = "The ID of the mutation, which can be used to query its status"
+    )
+    @JsonProperty("requestId")
+    private String requestId;
+
+    @Schema(
+        title = "Added Row IDs",
+        description = "The IDs of the rows that will be added, when they are known upfront"
+    )
+    @JsonProperty("addedRowIds")
+    private List<String> addedRowIds;
+}
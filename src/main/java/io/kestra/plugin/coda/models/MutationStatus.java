@@ -0,0 +1,31 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Status of an asynchronous mutation, such as a row insert or upsert.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MutationStatus {
+    @Schema(
+        title = "Completed",
+        description = "Whether the mutation has been applied to the document"
+    )
+    @JsonProperty("completed")
+    private Boolean completed;
+
+    @Schema(
+        title = "Warning",
+        description = "A warning raised while applying the mutation, if any"
+    )
+    @JsonProperty("warning")
+    private String warning;
+}
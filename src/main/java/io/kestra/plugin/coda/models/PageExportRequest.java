@@ -0,0 +1,20 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Request body to start the export of the content of a page.
+ */
+@Builder
+@Getter
+@Jacksonized
+public class PageExportRequest {
+    /**
+     * The format of the exported content, {@code html} or {@code markdown}.
+     */
+    @JsonProperty("outputFormat")
+    private String outputFormat;
+}
@@ -0,0 +1,55 @@
+package io.kestra.plugin.coda.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Status of the asynchronous export of the content of a page.
+ */
+@Builder
+@Getter
+@Jacksonized
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PageExportStatus {
+    public static final String COMPLETE = "complete";
+    public static final String FAILED = "failed";
+
+    @Schema(
+        title = "Export ID",
+        description = "The identifier of the export request"
+    )
+    @JsonProperty("id")
+    private String id;
+
+    @Schema(
+        title = "Status",
+        description = "The status of the export: inProgress, failed or complete"
+    )
+    @JsonProperty("status")
+    private String status;
+
+    @Schema(
+        title = "Status URL",
+        description = "The API URL to poll for the status of the export"
+    )
+    @JsonProperty("href")
+    private String href;
+
+    @Schema(
+        title = "Download Link",
+        description = "A temporary URL to download the exported content from, once the export is complete"
+    )
+    @JsonProperty("downloadLink")
+    private String downloadLink;
+
+    @Schema(
+        title = "Error",
+        description = "The reason the export failed, if it did"
+    )
+    @JsonProperty("error")
+    private String error;
+}
@@ -38,6 +38,13 @@ public class PagedResponse<T> {
     @JsonProperty("nextPageLink")
     private String nextPageLink;
 
+    @Schema(
+        title = "Next Sync Token",
+        description = "Returned with the last page of rows; passed back as `syncToken`, it returns only the rows changed since this listing"
+    )
+    @JsonProperty("nextSyncToken")
+    private String nextSyncToken;
+
     @Schema(
         title = "Has More Pages",
         description = "Whether there are more pages to fetch"
@@ -0,0 +1,115 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class CaptureChangesTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+    private String flowId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+        flowId = "capture-" + IdUtils.create();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        columns.put("Amount", "number");
+        simulator.addTable("doc", "grid-1", "Orders", columns)
+            .generateRows(1_200, i -> Map.of("Name", "order-" + i, "Amount", (double) i));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void capturesInsertsUpdatesAndDeletes() throws Exception {
+        CaptureChanges.Output first = task(false).run(runContext());
+
+        assertThat(first.getFirstRun(), is(true));
+        assertThat(first.getRows(), is(1_200L));
+        assertThat(first.getInserted(), is(0L));
+
+        simulator.table("doc", "grid-1")
+            .updateRow(10, Map.of("Amount", 1_000.0))
+            .deleteRow(20)
+            .generateRows(2, i -> Map.of("Name", "new-" + i, "Amount", 0.0));
+
+        RunContext runContext = runContext();
+        CaptureChanges.Output second = task(false).run(runContext);
+
+        assertThat(second.getFirstRun(), is(false));
+        assertThat(second.getRows(), is(1_201L));
+        assertThat(second.getInserted(), is(2L));
+        assertThat(second.getUpdated(), is(1L));
+        assertThat(second.getDeleted(), is(1L));
+
+        List<Map<?, ?>> events = CodaApiSimulator.read(runContext, second.getUri());
+        assertThat(events, hasSize(4));
+        assertThat(events.stream().filter(event -> "UPDATE".equals(event.get("_op"))).findFirst().orElseThrow().get("Name"), is("order-10"));
+        Map<?, ?> delete = events.stream().filter(event -> "DELETE".equals(event.get("_op"))).findFirst().orElseThrow();
+        assertThat(delete.get("_id"), notNullValue());
+        assertThat(delete.keySet(), hasSize(2));
+
+        CaptureChanges.Output third = task(false).run(runContext());
+        assertThat(third.getInserted() + third.getUpdated() + third.getDeleted(), is(0L));
+    }
+
+    @Test
+    void emitsExistingRowsOnFirstRunWhenAsked() throws Exception {
+        CaptureChanges.Output output = task(true).run(runContext());
+
+        assertThat(output.getFirstRun(), is(true));
+        assertThat(output.getInserted(), is(1_200L));
+    }
+
+    @Test
+    void reportsARowListedTwiceOnce() throws Exception {
+        task(false).run(runContext());
+        simulator.table("doc", "grid-1")
+            .generateRows(1, i -> Map.of("Name", "new", "Amount", 0.0))
+            .repeatInListing(1_200);
+
+        RunContext runContext = runContext();
+        CaptureChanges.Output output = task(false).run(runContext);
+
+        assertThat(output.getInserted(), is(1L));
+        assertThat(CodaApiSimulator.read(runContext, output.getUri()), hasSize(1));
+        assertThat(task(false).run(runContext()).getInserted(), is(0L));
+    }
+
+    private RunContext runContext() {
+        return runContextFactory.of(Map.of("flow", Map.of("id", flowId, "namespace", "company.team", "revision", 1)));
+    }
+
+    private CaptureChanges task(boolean emitExistingRows) {
+        return CaptureChanges.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .pageSize(Property.ofValue(250))
+            .emitExistingRows(Property.ofValue(emitExistingRows))
+            .build();
+    }
+}
@@ -0,0 +1,858 @@
+package io.kestra.plugin.coda;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the Coda API, backed by a {@link MockWebServer}.
+ * <p>
+ * It serves tables, columns and rows with token-based pagination and sync tokens, inserts and upserts on key columns,
+ * mutation status, asynchronous page exports downloaded from a separate host, and enforces a per-token rate limit answered with HTTP 429 and a Retry-After header. Latency and faults can be
+ * injected to exercise the retry, throughput and memory behavior of the client offline.
+ */
+public class CodaApiSimulator implements AutoCloseable {
+    public static final String VALID_TOKEN = "simulator-token";
+
+    private static final ObjectMapper MAPPER = JacksonMapper.ofJson();
+    private static final Pattern DOCS = Pattern.compile("^/docs$");
+    private static final Pattern TABLES = Pattern.compile("^/docs/([^/]+)/tables$");
+    private static final Pattern TABLE = Pattern.compile("^/docs/([^/]+)/tables/([^/]+)$");
+    private static final Pattern COLUMNS = Pattern.compile("^/docs/([^/]+)/tables/([^/]+)/columns$");
+    private static final Pattern ROWS = Pattern.compile("^/docs/([^/]+)/tables/([^/]+)/rows$");
+    private static final Pattern ROW = Pattern.compile("^/docs/([^/]+)/tables/([^/]+)/rows/([^/]+)$");
+    private static final Pattern AUTOMATION = Pattern.compile("^/docs/([^/]+)/hooks/automation/([^/]+)$");
+    private static final Pattern MUTATION_STATUS = Pattern.compile("^/mutationStatus/([^/]+)$");
+    private static final Pattern PAGES = Pattern.compile("^/docs/([^/]+)/pages$");
+    private static final Pattern PAGE_EXPORT = Pattern.compile("^/docs/([^/]+)/pages/([^/]+)/export$");
+    private static final Pattern PAGE_EXPORT_STATUS = Pattern.compile("^/docs/([^/]+)/pages/([^/]+)/export/([^/]+)$");
+    private static final Pattern DOWNLOAD = Pattern.compile("^/downloads/([^/]+)$");
+
+    private final MockWebServer server = new MockWebServer();
+    // downloads are served from another origin, as the export links point to a storage host and not to the API
+    private final MockWebServer downloads = new MockWebServer();
+    private final Map<String, Map<String, Table>> docs = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> docInfos = new ConcurrentHashMap<>();
+    private final Set<String> validTokens = ConcurrentHashMap.newKeySet();
+    private final Queue<Fault> faults = new ConcurrentLinkedQueue<>();
+    private final Map<String, Deque<Long>> requestTimes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final Queue<Object> automationPayloads = new ConcurrentLinkedQueue<>();
+    private final Map<String, Map<String, String>> pages = new ConcurrentHashMap<>();
+    private final Map<String, Export> exports = new ConcurrentHashMap<>();
+    private final Queue<String> downloadAuthorizations = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong versions = new AtomicLong();
+    private final Random random = new Random(42);
+
+    private final AtomicInteger stalls = new AtomicInteger();
+    private volatile Duration stallDuration = Duration.ZERO;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double faultRate = 0;
+    private volatile Fault randomFault = Fault.SERVER_ERROR;
+    private volatile int rateLimit = Integer.MAX_VALUE;
+    private volatile Duration rateLimitWindow = Duration.ofSeconds(1);
+    private volatile int retryAfterSeconds = 0;
+    private volatile int exportPolls = 1;
+    private volatile boolean exportsLost;
+    private volatile boolean exportIdsOmitted;
+
+    public CodaApiSimulator() throws IOException {
+        validTokens.add(VALID_TOKEN);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return handle(request);
+            }
+        });
+        server.start();
+        downloads.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return download(request);
+            }
+        });
+        downloads.start();
+    }
+
+    /**
+     * @return The base URL to pass to {@code CodaConnection} or to the {@code baseUrl} task property
+     */
+    public String baseUrl() {
+        String url = server.url("/").toString();
+        return url.substring(0, url.length() - 1);
+    }
+
+    public CodaApiSimulator addToken(String token) {
+        validTokens.add(token);
+        return this;
+    }
+
+    public CodaApiSimulator revokeToken(String token) {
+        validTokens.remove(token);
+        return this;
+    }
+
+    /**
+     * Registers the name, workspace and folder of a document, as returned by the documents listing.
+     */
+    public CodaApiSimulator addDoc(String docId, String name, String workspaceId, String folderId) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", docId);
+        info.put("type", "doc");
+        info.put("name", name);
+        info.put("workspaceId", workspaceId);
+        info.put("folderId", folderId);
+        docInfos.put(docId, info);
+        docs.computeIfAbsent(docId, k -> new ConcurrentHashMap<>());
+        return this;
+    }
+
+    /**
+     * Creates a table whose columns are given as name to format type, e.g. {@code "Amount" -> "number"}.
+     * Column IDs are {@code c-<index>} in the order of the map.
+     */
+    public Table addTable(String docId, String tableId, String name, LinkedHashMap<String, String> columns) {
+        Table table = new Table(tableId, name);
+        int index = 0;
+        for (Map.Entry<String, String> column : columns.entrySet()) {
+            table.columns.add(new Column("c-" + index++, column.getKey(), column.getValue()));
+        }
+
+        docs.computeIfAbsent(docId, k -> new ConcurrentHashMap<>()).put(tableId, table);
+        return table;
+    }
+
+    /**
+     * Adds a page to a document, whose export is the given content in any output format.
+     */
+    public CodaApiSimulator addPage(String docId, String pageId, String content) {
+        pages.computeIfAbsent(docId, k -> Collections.synchronizedMap(new LinkedHashMap<>())).put(pageId, content);
+        return this;
+    }
+
+    /**
+     * Sets the number of status checks an export stays in progress for before it completes.
+     */
+    public CodaApiSimulator exportPolls(int polls) {
+        this.exportPolls = polls;
+        return this;
+    }
+
+    /**
+     * Makes the status of every export not found, as if the API lost them after they were started.
+     */
+    public CodaApiSimulator loseExports() {
+        this.exportsLost = true;
+        return this;
+    }
+
+    /**
+     * Makes the start of every export answer without the ID of its request.
+     */
+    public CodaApiSimulator omitExportIds() {
+        this.exportIdsOmitted = true;
+        return this;
+    }
+
+    public Table table(String docId, String tableId) {
+        Map<String, Table> tables = docs.get(docId);
+        return tables != null ? tables.get(tableId) : null;
+    }
+
+    /**
+     * Adds a fixed latency before the headers of every response.
+     */
+    public CodaApiSimulator latency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * Delays the next {@code count} responses by {@code duration} instead of the regular latency, to simulate tail latency.
+     */
+    public CodaApiSimulator stallNextRequests(int count, Duration duration) {
+        this.stallDuration = duration;
+        this.stalls.set(count);
+        return this;
+    }
+
+    /**
+     * Limits each token to {@code requests} requests per {@code window}. Requests over the limit get a 429 response
+     * with a Retry-After header of {@code retryAfterSeconds}.
+     */
+    public CodaApiSimulator rateLimit(int requests, Duration window, int retryAfterSeconds) {
+        this.rateLimit = requests;
+        this.rateLimitWindow = window;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    /**
+     * Makes the next requests fail with the given faults, in order.
+     */
+    public CodaApiSimulator injectFaults(Fault... faults) {
+        this.faults.addAll(Arrays.asList(faults));
+        return this;
+    }
+
+    /**
+     * Makes a random fraction of the requests fail with the given fault.
+     */
+    public CodaApiSimulator faultRate(double rate, Fault fault) {
+        this.faultRate = rate;
+        this.randomFault = fault;
+        return this;
+    }
+
+    /**
+     * @return The number of requests received for the given method, across all paths
+     */
+    public int requestCount(String method) {
+        AtomicInteger count = requestCounts.get(method);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * @return The payloads received by automation webhooks, in arrival order
+     */
+    public List<Object> automationPayloads() {
+        return new ArrayList<>(automationPayloads);
+    }
+
+    /**
+     * @return The Authorization header of each download request, or an empty string when there was none
+     */
+    public List<String> downloadAuthorizations() {
+        return new ArrayList<>(downloadAuthorizations);
+    }
+
+    /**
+     * @return The total number of requests received
+     */
+    public int requestCount() {
+        return server.getRequestCount();
+    }
+
+    /**
+     * @return A page of the given number of rows, as the rows listing answers it, for the JSON reading tests
+     */
+    public static byte[] rowsPage(int size) throws Exception {
+        List<Object> items = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "i-" + i);
+            row.put("type", "row");
+            row.put("name", "row " + i);
+            row.put("index", i);
+            row.put("createdAt", "2024-01-15T10:30:00.000Z");
+            row.put("updatedAt", "2024-01-15T11:45:00.000Z");
+            row.put("values", Map.of("c-0", "text " + i, "c-1", i * 1.5, "c-2", i % 2 == 0));
+            items.add(row);
+        }
+        return MAPPER.writeValueAsBytes(Map.of("items", items, "nextPageToken", "next"));
+    }
+
+    /**
+     * Reads the records of an ION file the tasks wrote to internal storage.
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Map<?, ?>> read(RunContext runContext, URI uri) throws Exception {
+        try (InputStream input = runContext.storage().getFile(uri);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            return (List<Map<?, ?>>) (List<?>) FileSerde.readAll(reader).collectList().block();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+        downloads.shutdown();
+    }
+
+    private MockResponse handle(RecordedRequest request) {
+        requestCounts.computeIfAbsent(request.getMethod(), k -> new AtomicInteger()).incrementAndGet();
+
+        MockResponse response;
+        try {
+            response = route(request);
+        } catch (Exception e) {
+            response = error(500, String.valueOf(e.getMessage()));
+        }
+
+        if (stalls.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+            response.setHeadersDelay(stallDuration.toMillis(), TimeUnit.MILLISECONDS);
+        } else if (!latency.isZero()) {
+            response.setHeadersDelay(latency.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return response;
+    }
+
+    private MockResponse route(RecordedRequest request) throws IOException {
+        String authorization = request.getHeader("Authorization");
+        String token = authorization != null && authorization.startsWith("Bearer ") ? authorization.substring(7) : null;
+        if (token == null || !validTokens.contains(token)) {
+            return error(401, "Unauthorized");
+        }
+
+        if (isRateLimited(token)) {
+            return error(429, "Too Many Requests").setHeader("Retry-After", retryAfterSeconds);
+        }
+
+        Fault fault = faults.poll();
+        if (fault == null && faultRate > 0 && random.nextDouble() < faultRate) {
+            fault = randomFault;
+        }
+        if (fault != null) {
+            return fault.response(retryAfterSeconds);
+        }
+
+        HttpUrl url = Objects.requireNonNull(request.getRequestUrl());
+        String path = url.encodedPath();
+        String method = request.getMethod();
+        Matcher matcher;
+
+        if ("GET".equals(method) && DOCS.matcher(path).matches()) {
+            String workspaceId = url.queryParameter("workspaceId");
+            String folderId = url.queryParameter("folderId");
+            List<Object> items = new ArrayList<>();
+            new TreeSet<>(docs.keySet()).forEach(docId -> {
+                Map<String, Object> info = docInfos.getOrDefault(docId, Map.of("id", docId, "type", "doc", "name", docId));
+                if ((workspaceId == null || workspaceId.equals(info.get("workspaceId")))
+                    && (folderId == null || folderId.equals(info.get("folderId")))) {
+                    items.add(info);
+                }
+            });
+            return page(url, items, null);
+        }
+
+        if ("GET".equals(method) && (matcher = TABLES.matcher(path)).matches()) {
+            Map<String, Table> tables = docs.get(decode(matcher.group(1)));
+            if (tables == null) {
+                return error(404, "Doc not found");
+            }
+            List<Object> items = new ArrayList<>();
+            tables.values().forEach(table -> items.add(table.toJson()));
+            return page(url, items, null);
+        }
+
+        if ("GET".equals(method) && (matcher = TABLE.matcher(path)).matches()) {
+            Table table = find(matcher.group(1), matcher.group(2));
+            return table == null ? error(404, "Table not found") : json(200, table.toJson());
+        }
+
+        if ("GET".equals(method) && (matcher = COLUMNS.matcher(path)).matches()) {
+            Table table = find(matcher.group(1), matcher.group(2));
+            if (table == null) {
+                return error(404, "Table not found");
+            }
+            List<Object> items = new ArrayList<>();
+            table.columns.forEach(column -> items.add(column.toJson()));
+            return page(url, items, null);
+        }
+
+        if ((matcher = ROWS.matcher(path)).matches()) {
+            Table table = find(matcher.group(1), matcher.group(2));
+            if (table == null) {
+                return error(404, "Table not found");
+            }
+            if ("GET".equals(method)) {
+                if (table.pageTokensExpired && url.queryParameter("pageToken") != null) {
+                    return error(400, "Page token expired");
+                }
+                // a sync token is the version of the table at the time of a listing; only later changes are returned
+                long since = Optional.ofNullable(url.queryParameter("syncToken")).map(Long::parseLong).orElse(0L);
+                List<Object> items = new ArrayList<>();
+                long version;
+                synchronized (table) {
+                    version = versions.get();
+                    table.rows.values().stream()
+                        .filter(row -> row.version > since)
+                        .forEach(row -> items.add(table.toJson(row, url)));
+                    Row repeated = table.repeatedRowId != null ? table.rows.get(table.repeatedRowId) : null;
+                    if (repeated != null && repeated.version > since) {
+                        items.add(table.toJson(repeated, url));
+                    }
+                }
+                return page(url, items, String.valueOf(version));
+            }
+            if ("POST".equals(method)) {
+                return upsert(table, request.getBody().readUtf8());
+            }
+        }
+
+        if ((matcher = ROW.matcher(path)).matches()) {
+            Table table = find(matcher.group(1), matcher.group(2));
+            String rowId = decode(matcher.group(3));
+            Row row = table != null ? table.rows.get(rowId) : null;
+            if (row == null) {
+                return error(404, "Row not found");
+            }
+            if ("GET".equals(method)) {
+                return json(200, table.toJson(row, url));
+            }
+            if ("DELETE".equals(method)) {
+                synchronized (table) {
+                    table.rows.remove(rowId);
+                }
+                return json(202, Map.of("requestId", nextId("mutate"), "id", rowId));
+            }
+        }
+
+        if ("POST".equals(method) && AUTOMATION.matcher(path).matches()) {
+            automationPayloads.add(MAPPER.readValue(request.getBody().readUtf8(), Object.class));
+            return json(202, Map.of("requestId", nextId("automation")));
+        }
+
+        if ("GET".equals(method) && (matcher = MUTATION_STATUS.matcher(path)).matches()) {
+            return json(200, Map.of("completed", true));
+        }
+
+        if ("GET".equals(method) && (matcher = PAGES.matcher(path)).matches()) {
+            String docId = decode(matcher.group(1));
+            Map<String, String> docPages = pages.getOrDefault(docId, Map.of());
+            List<Object> items = new ArrayList<>();
+            synchronized (docPages) {
+                docPages.keySet().forEach(pageId -> items.add(Map.of("id", pageId, "type", "page", "name", pageId, "contentType", "canvas")));
+            }
+            return page(url, items, null);
+        }
+
+        if ("POST".equals(method) && (matcher = PAGE_EXPORT.matcher(path)).matches()) {
+            String docId = decode(matcher.group(1));
+            String pageId = decode(matcher.group(2));
+            String content = pages.getOrDefault(docId, Map.of()).get(pageId);
+            if (content == null) {
+                return error(404, "Page not found");
+            }
+            String id = nextId("export");
+            exports.put(id, new Export(content, new AtomicInteger(exportPolls)));
+            if (exportIdsOmitted) {
+                return json(202, Map.of("status", "inProgress"));
+            }
+            return json(202, Map.of("id", id, "status", "inProgress", "href", url.toString() + "/" + id));
+        }
+
+        if ("GET".equals(method) && (matcher = PAGE_EXPORT_STATUS.matcher(path)).matches()) {
+            String id = decode(matcher.group(3));
+            Export export = exportsLost ? null : exports.get(id);
+            if (export == null) {
+                return error(404, "Export not found");
+            }
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("id", id);
+            body.put("href", url.toString());
+            if (export.polls().getAndDecrement() > 1) {
+                body.put("status", "inProgress");
+            } else {
+                body.put("status", "complete");
+                body.put("downloadLink", downloads.url("/downloads/" + id).toString());
+            }
+            return json(200, body);
+        }
+
+        return error(404, "No route for " + method + " " + path);
+    }
+
+    private MockResponse download(RecordedRequest request) {
+        downloadAuthorizations.add(Optional.ofNullable(request.getHeader("Authorization")).orElse(""));
+
+        Matcher matcher = DOWNLOAD.matcher(Objects.requireNonNull(request.getRequestUrl()).encodedPath());
+        Export export = matcher.matches() ? exports.get(decode(matcher.group(1))) : null;
+        if (export == null) {
+            return new MockResponse().setResponseCode(404);
+        }
+        return new MockResponse()
+            .setResponseCode(200)
+            .setHeader("Content-Type", "application/octet-stream")
+            .setBody(export.content());
+    }
+
+    private MockResponse upsert(Table table, String body) throws IOException {
+        Map<String, Object> payload = MAPPER.readValue(body, new TypeReference<>() {});
+        List<Map<String, Object>> rows = castList(payload.get("rows"));
+        List<String> keyColumns = castList(payload.getOrDefault("keyColumns", List.of()));
+        List<String> addedRowIds = new ArrayList<>();
+
+        synchronized (table) {
+            for (Map<String, Object> rowData : rows) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (Map<String, Object> cell : this.<Map<String, Object>>castList(rowData.get("cells"))) {
+                    values.put(table.columnId((String) cell.get("column")), cell.get("value"));
+                }
+
+                Row existing = keyColumns.isEmpty() ? null : table.findByKeys(keyColumns, values);
+                if (existing != null) {
+                    existing.values.putAll(values);
+                    existing.touch(versions.incrementAndGet());
+                } else {
+                    Row row = new Row(nextId("i"), table.rows.size(), values, versions.incrementAndGet());
+                    table.rows.put(row.id, row);
+                    addedRowIds.add(row.id);
+                }
+            }
+        }
+
+        return json(202, Map.of("requestId", nextId("mutate"), "addedRowIds", addedRowIds));
+    }
+
+    private boolean isRateLimited(String token) {
+        if (rateLimit == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+        Deque<Long> times = requestTimes.computeIfAbsent(token, k -> new ArrayDeque<>());
+        synchronized (times) {
+            while (!times.isEmpty() && now - times.peekFirst() > rateLimitWindow.toNanos()) {
+                times.pollFirst();
+            }
+            if (times.size() >= rateLimit) {
+                return true;
+            }
+            times.addLast(now);
+            return false;
+        }
+    }
+
+    private MockResponse page(HttpUrl url, List<Object> items, String syncToken) {
+        int limit = Optional.ofNullable(url.queryParameter("limit")).map(Integer::parseInt).orElse(25);
+        int offset = Optional.ofNullable(url.queryParameter("pageToken")).map(Integer::parseInt).orElse(0);
+        int end = Math.min(items.size(), offset + limit);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", items.subList(Math.min(offset, end), end));
+        if (end < items.size()) {
+            body.put("nextPageToken", String.valueOf(end));
+            body.put("nextPageLink", url.newBuilder().setQueryParameter("pageToken", String.valueOf(end)).build().toString());
+        } else if (syncToken != null) {
+            body.put("nextSyncToken", syncToken);
+        }
+        return json(200, body);
+    }
+
+    private Table find(String docId, String tableIdOrName) {
+        Map<String, Table> tables = docs.get(decode(docId));
+        if (tables == null) {
+            return null;
+        }
+        String key = decode(tableIdOrName);
+        Table table = tables.get(key);
+        if (table != null) {
+            return table;
+        }
+        return tables.values().stream().filter(t -> t.name.equals(key)).findFirst().orElse(null);
+    }
+
+    /**
+     * Renders a stored value, kept as in the {@code rich} format, in the given value format: {@code rich} wraps text
+     * in code blocks, {@code simple} renders references by name and lists as comma-separated text, and
+     * {@code simpleWithArrays} keeps the lists.
+     */
+    private static Object formatValue(Object value, String valueFormat) {
+        if ("rich".equals(valueFormat)) {
+            return value instanceof String text ? "```" + text + "```" : value;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> items = list.stream().map(item -> formatValue(item, valueFormat)).toList();
+            return "simpleWithArrays".equals(valueFormat)
+                ? items
+                : String.join(",", items.stream().map(String::valueOf).toList());
+        }
+        if (value instanceof Map<?, ?> map && "StructuredValue".equals(map.get("@type"))) {
+            return map.get("name");
+        }
+        return value;
+    }
+
+    private static boolean useColumnNames(HttpUrl url) {
+        return Boolean.parseBoolean(url.queryParameter("useColumnNames"));
+    }
+
+    private String nextId(String prefix) {
+        return prefix + "-" + ids.incrementAndGet();
+    }
+
+    private static MockResponse json(int status, Object body) {
+        try {
+            return new MockResponse()
+                .setResponseCode(status)
+                .setHeader("Content-Type", "application/json")
+                .setBody(MAPPER.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MockResponse error(int status, String message) {
+        return json(status, Map.of("statusCode", status, "statusMessage", message, "message", message));
+    }
+
+    private static String decode(String segment) {
+        return HttpUrl.get("http://localhost/" + segment).pathSegments().get(0);
+    }
+
+    private static String now() {
+        return Instant.now().toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> castList(Object value) {
+        return value != null ? (List<T>) value : List.of();
+    }
+
+    /**
+     * A failure the simulator can return instead of handling a request.
+     */
+    public enum Fault {
+        SERVER_ERROR,
+        SERVICE_UNAVAILABLE,
+        RATE_LIMITED,
+        DISCONNECT;
+
+        MockResponse response(int retryAfterSeconds) {
+            return switch (this) {
+                case SERVER_ERROR -> error(500, "Internal Server Error");
+                case SERVICE_UNAVAILABLE -> error(503, "Service Unavailable");
+                case RATE_LIMITED -> error(429, "Too Many Requests").setHeader("Retry-After", retryAfterSeconds);
+                case DISCONNECT -> new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+            };
+        }
+    }
+
+    /**
+     * A simulated table. Rows are kept in insertion order and values are keyed by column ID.
+     */
+    public class Table {
+        private final String id;
+        private final String name;
+        private final List<Column> columns = new ArrayList<>();
+        private final Map<String, Row> rows = new LinkedHashMap<>();
+        private volatile boolean pageTokensExpired;
+        private volatile String repeatedRowId;
+
+        Table(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        /**
+         * Adds rows whose values are produced by the generator from the row index, keyed by column name.
+         */
+        public synchronized Table generateRows(int count, IntFunction<Map<String, Object>> generator) {
+            for (int i = 0; i < count; i++) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                generator.apply(i).forEach((column, value) -> values.put(columnId(column), value));
+                Row row = new Row(nextId("i"), rows.size(), values, versions.incrementAndGet());
+                rows.put(row.id, row);
+            }
+            return this;
+        }
+
+        /**
+         * Changes the values of the row at the given position, keyed by column name, as an edit in the Coda UI would.
+         */
+        public synchronized Table updateRow(int position, Map<String, Object> values) {
+            Row row = new ArrayList<>(rows.values()).get(position);
+            values.forEach((column, value) -> row.values.put(columnId(column), value));
+            row.touch(versions.incrementAndGet());
+            return this;
+        }
+
+        /**
+         * Lists the row at the given position a second time at the end of the listings, as happens when a row moves to
+         * a later page while the table is paged.
+         */
+        public synchronized Table repeatInListing(int position) {
+            this.repeatedRowId = new ArrayList<>(rows.keySet()).get(position);
+            return this;
+        }
+
+        /**
+         * Makes the listings of the rows fail after their first page, as they do when a page token expires.
+         */
+        public Table expirePageTokens() {
+            this.pageTokensExpired = true;
+            return this;
+        }
+
+        /**
+         * Deletes the row at the given position.
+         */
+        public synchronized Table deleteRow(int position) {
+            rows.remove(new ArrayList<>(rows.keySet()).get(position));
+            return this;
+        }
+
+        public synchronized int rowCount() {
+            return rows.size();
+        }
+
+        /**
+         * @return The values of every row, keyed by column name
+         */
+        public synchronized List<Map<String, Object>> rowValues() {
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (Row row : rows.values()) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (Column column : columns) {
+                    values.put(column.name, row.values.get(column.id));
+                }
+                result.add(values);
+            }
+            return result;
+        }
+
+        String columnId(String nameOrId) {
+            return columns.stream()
+                .filter(c -> c.id.equals(nameOrId) || c.name.equals(nameOrId))
+                .map(c -> c.id)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown column " + nameOrId));
+        }
+
+        /**
+         * @return The row as listed, with its values in the value format asked for and keyed by column name instead
+         * of ID if asked to
+         */
+        synchronized Map<String, Object> toJson(Row row, HttpUrl url) {
+            String valueFormat = Optional.ofNullable(url.queryParameter("valueFormat")).orElse("simple");
+            Map<String, Object> values = new LinkedHashMap<>();
+            columns.stream()
+                .filter(column -> row.values.containsKey(column.id))
+                .forEach(column -> values.put(
+                    useColumnNames(url) ? column.name : column.id,
+                    formatValue(row.values.get(column.id), valueFormat)
+                ));
+
+            Map<String, Object> json = row.toJson();
+            json.put("values", values);
+            Row parent = row.parentId != null ? rows.get(row.parentId) : null;
+            if (parent != null) {
+                json.put("parent", Map.of("id", parent.id, "type", "row", "name", parent.name()));
+            }
+            return json;
+        }
+
+        /**
+         * Sets the parent of the row at the given position, as in a hierarchical table.
+         */
+        public synchronized Table setParent(int position, int parentPosition) {
+            List<Row> list = new ArrayList<>(rows.values());
+            list.get(position).parentId = list.get(parentPosition).id;
+            return this;
+        }
+
+        /**
+         * @return The IDs of the rows, in order
+         */
+        public synchronized List<String> rowIds() {
+            return new ArrayList<>(rows.keySet());
+        }
+
+        Row findByKeys(List<String> keyColumns, Map<String, Object> values) {
+            for (Row row : rows.values()) {
+                boolean matches = keyColumns.stream()
+                    .map(this::columnId)
+                    .allMatch(key -> Objects.equals(String.valueOf(row.values.get(key)), String.valueOf(values.get(key))));
+                if (matches) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", id);
+            json.put("type", "table");
+            json.put("name", name);
+            json.put("rowCount", rows.size());
+            return json;
+        }
+    }
+
+    private record Export(String content, AtomicInteger polls) {
+    }
+
+    private record Column(String id, String name, String formatType) {
+        Map<String, Object> toJson() {
+            return Map.of(
+                "id", id,
+                "type", "column",
+                "name", name,
+                "calculated", false,
+                "format", Map.of("type", formatType, "isArray", false)
+            );
+        }
+    }
+
+    private static class Row {
+        private final String id;
+        private final int index;
+        private final Map<String, Object> values;
+        private final String createdAt;
+        private String updatedAt;
+        private long version;
+        private String parentId;
+
+        Row(String id, int index, Map<String, Object> values, long version) {
+            this.id = id;
+            this.index = index;
+            this.values = values;
+            this.createdAt = now();
+            this.updatedAt = createdAt;
+            this.version = version;
+        }
+
+        void touch(long version) {
+            this.updatedAt = now();
+            this.version = version;
+        }
+
+        /**
+         * @return The display name of the row, the value of its first column
+         */
+        String name() {
+            return String.valueOf(formatValue(values.values().stream().findFirst().orElse(""), "simple"));
+        }
+
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("id", id);
+            json.put("type", "row");
+            json.put("name", name());
+            json.put("index", index);
+            json.put("createdAt", createdAt);
+            json.put("updatedAt", updatedAt);
+            json.put("values", new LinkedHashMap<>(values));
+            return json;
+        }
+    }
+}
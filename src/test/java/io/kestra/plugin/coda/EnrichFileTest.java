@@ -0,0 +1,124 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.formats.InputFormat;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class EnrichFileTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Customer ID", "number");
+        columns.put("Segment", "text");
+        simulator.addTable("doc", "grid-1", "Customers", columns)
+            .generateRows(300, i -> Map.of("Customer ID", (double) i, "Segment", "segment-" + i % 3));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void joinsInMemoryInInputOrder() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        EnrichFile.Output output = task(orders(runContext), 64L * 1024 * 1024).run(runContext);
+        List<Map<?, ?>> records = CodaApiSimulator.read(runContext, output.getUri());
+
+        assertThat(output.getSpilled(), is(false));
+        assertThat(output.getSize(), is(2_000L));
+        assertThat(output.getMatched(), is(1_500L));
+        assertThat(records.get(7).get("order"), is(7));
+        assertThat(records.get(7).get("customer_Segment"), is("segment-1"));
+        assertThat(records.get(1_999).containsKey("customer_Segment"), is(false));
+    }
+
+    @Test
+    void partitionsOnDiskOverTheMemoryBudget() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        EnrichFile.Output output = task(orders(runContext), 1_024L).run(runContext);
+        List<Map<?, ?>> records = CodaApiSimulator.read(runContext, output.getUri());
+
+        assertThat(output.getSpilled(), is(true));
+        assertThat(output.getSize(), is(2_000L));
+        assertThat(output.getMatched(), is(1_500L));
+        Map<?, ?> order = records.stream().filter(r -> r.get("order").equals(7)).findFirst().orElseThrow();
+        assertThat(order.get("customer_Segment"), is("segment-1"));
+    }
+
+    @Test
+    void matchesNumbersReadAsText() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        Path file = runContext.workingDir().createTempFile(".csv");
+        Files.writeString(file, "order,customer_id\n1,7\n2,7.0\n3,7.50E0\n4,007\n");
+        URI from = runContext.storage().putFile(file.toFile());
+
+        EnrichFile.Output output = task(from, 64L * 1024 * 1024, InputFormat.CSV).run(runContext);
+        List<Map<?, ?>> records = CodaApiSimulator.read(runContext, output.getUri());
+
+        assertThat(output.getMatched(), is(2L));
+        assertThat(records.get(0).get("customer_Segment"), is("segment-1"));
+        assertThat(records.get(1).get("customer_Segment"), is("segment-1"));
+        // 7.5 is not a customer, and 007 is a code rather than a number
+        assertThat(records.get(2).containsKey("customer_Segment"), is(false));
+        assertThat(records.get(3).containsKey("customer_Segment"), is(false));
+    }
+
+    // orders 0 to 1499 belong to customers 0 to 299, the others to unknown customers
+    private URI orders(RunContext runContext) throws Exception {
+        Path file = runContext.workingDir().createTempFile(".ion");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            for (int i = 0; i < 2_000; i++) {
+                FileSerde.write(output, Map.of("order", i, "customer_id", i < 1_500 ? i % 300 : 1_000 + i));
+            }
+        }
+        return runContext.storage().putFile(file.toFile());
+    }
+
+    private EnrichFile task(URI from, long memoryBudget) {
+        return task(from, memoryBudget, InputFormat.ION);
+    }
+
+    private EnrichFile task(URI from, long memoryBudget, InputFormat format) {
+        return EnrichFile.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .keyColumn(Property.ofValue("Customer ID"))
+            .keyField(Property.ofValue("customer_id"))
+            .prefix(Property.ofValue("customer_"))
+            .from(Property.ofValue(from.toString()))
+            .format(Property.ofValue(format))
+            .memoryBudget(Property.ofValue(memoryBudget))
+            .build();
+    }
+}
@@ -0,0 +1,152 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class ExportPagesTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator().exportPolls(3);
+        for (int i = 0; i < 30; i++) {
+            simulator.addPage("doc", "canvas-" + i, "# Page " + i + "\n");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void exportsEveryPageWithoutSendingTheTokenToDownloadLinks() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportPages.Output output = task(null, 10).run(runContext);
+
+        assertThat(output.getPages(), is(30));
+        assertThat(output.getFailedPages(), is(0L));
+
+        List<Map<?, ?>> results = CodaApiSimulator.read(runContext, output.getUri());
+        assertThat(results, hasSize(30));
+        Map<?, ?> first = results.getFirst();
+        assertThat(first.get("page"), is("canvas-0"));
+        assertThat(first.get("status"), is("SUCCESS"));
+        try (InputStream input = runContext.storage().getFile(URI.create((String) first.get("uri")))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8), is("# Page 0\n"));
+        }
+
+        assertThat(simulator.downloadAuthorizations(), hasSize(30));
+        assertThat(simulator.downloadAuthorizations(), everyItem(is("")));
+    }
+
+    @Test
+    void reportsPagesThatCannotBeExported() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportPages task = task(List.of("canvas-1", "missing"), 50);
+        assertThrows(IllegalStateException.class, () -> task.run(runContext));
+
+        ExportPages.Output output = ExportPages.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .pages(Property.ofValue(List.of("canvas-1", "missing")))
+            .pollInterval(Property.ofValue(Duration.ofMillis(10)))
+            .failOnError(Property.ofValue(false))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getFailedPages(), is(1L));
+        List<Map<?, ?>> results = CodaApiSimulator.read(runContext, output.getUri());
+        assertThat(results.get(1).get("status"), is("FAILED"));
+        assertThat(results.get(1).get("error"), notNullValue());
+    }
+
+    @Test
+    void failsExportsWhoseStatusIsNeverFound() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        simulator.loseExports();
+
+        ExportPages.Output output = ExportPages.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .pages(Property.ofValue(List.of("canvas-1", "canvas-2")))
+            .pollInterval(Property.ofValue(Duration.ofMillis(10)))
+            .maxPollInterval(Property.ofValue(Duration.ofMillis(10)))
+            .failOnError(Property.ofValue(false))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getFailedPages(), is(2L));
+        List<Map<?, ?>> results = CodaApiSimulator.read(runContext, output.getUri());
+        assertThat(results.getFirst().get("error"), is("The status of the export was still not found after 10 checks"));
+        assertThat(simulator.downloadAuthorizations(), empty());
+    }
+
+    @Test
+    void failsExportsStartedWithoutARequestId() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        simulator.omitExportIds();
+        int before = simulator.requestCount("GET");
+
+        ExportPages.Output output = ExportPages.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .pages(Property.ofValue(List.of("canvas-1", "canvas-2")))
+            .pollInterval(Property.ofValue(Duration.ofMillis(10)))
+            .failOnError(Property.ofValue(false))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getFailedPages(), is(2L));
+        List<Map<?, ?>> results = CodaApiSimulator.read(runContext, output.getUri());
+        assertThat(results.getFirst().get("error"), is("The export was started without a request ID"));
+        // an export without an ID is never polled
+        assertThat(simulator.requestCount("GET"), is(before));
+    }
+
+    @Test
+    void rejectsLimitsBelowOne() {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> task(null, 0).run(runContext));
+        assertThat(e.getMessage(), is("The 'maxInProgress' property must be at least 1, got 0"));
+        assertThat(simulator.requestCount("POST"), is(0));
+    }
+
+    private ExportPages task(List<String> pages, int maxInProgress) {
+        return ExportPages.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .pages(pages != null ? Property.ofValue(pages) : null)
+            .maxInProgress(Property.ofValue(maxInProgress))
+            .pollInterval(Property.ofValue(Duration.ofMillis(10)))
+            .build();
+    }
+}
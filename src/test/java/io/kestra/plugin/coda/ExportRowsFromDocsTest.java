@@ -0,0 +1,136 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.plugin.coda.client.DocSelector;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class ExportRowsFromDocsTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator().latency(Duration.ofMillis(10));
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Client", "text");
+        columns.put("Amount", "number");
+        for (int d = 0; d < 12; d++) {
+            simulator.addDoc("doc-" + d, "Client - " + d, "ws-1", d < 10 ? "fl-clients" : "fl-archive");
+            int doc = d;
+            simulator.addTable("doc-" + d, "grid-" + d, "Invoices", columns)
+                .generateRows(120, i -> Map.of("Client", "client-" + doc, "Amount", (double) i));
+        }
+        simulator.addDoc("doc-internal", "Internal roadmap", "ws-1", "fl-clients");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void exportsTheTableOfEverySelectedDoc() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportRowsFromDocs task = ExportRowsFromDocs.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docs(Property.ofValue(DocSelector.builder().folderId("fl-clients").namePattern("Client - .*").build()))
+            .tableId(Property.ofValue("Invoices"))
+            .pageSize(Property.ofValue(50))
+            .concurrency(Property.ofValue(4))
+            .maxRequestsPerSecond(Property.ofValue(200.0))
+            .build();
+
+        ExportRowsFromDocs.Output output = task.run(runContext);
+
+        assertThat(output.getDocs(), is(10));
+        assertThat(output.getFailedDocs(), is(0L));
+        assertThat(output.getSize(), is(1_200L));
+
+        List<Map<?, ?>> rows = CodaApiSimulator.read(runContext, output.getUri());
+        Map<Object, Long> rowsPerDoc = rows.stream().collect(Collectors.groupingBy(row -> row.get("_docId"), Collectors.counting()));
+        assertThat(rowsPerDoc.keySet(), hasSize(10));
+        assertThat(rowsPerDoc.values(), everyItem(is(120L)));
+        assertThat(rows.stream().filter(row -> "doc-3".equals(row.get("_docId"))).findFirst().orElseThrow().get("Client"), is("client-3"));
+
+        assertThat(CodaApiSimulator.read(runContext, output.getDocsUri()), hasSize(10));
+    }
+
+    @Test
+    void usesIdsWithoutListingDocs() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportRowsFromDocs task = ExportRowsFromDocs.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docs(Property.ofValue(DocSelector.builder().ids(List.of("doc-0", "doc-missing")).build()))
+            .tableId(Property.ofValue("Invoices"))
+            .failOnError(Property.ofValue(false))
+            .build();
+
+        ExportRowsFromDocs.Output output = task.run(runContext);
+
+        assertThat(output.getDocs(), is(2));
+        assertThat(output.getFailedDocs(), is(1L));
+        assertThat(output.getSize(), is(120L));
+    }
+
+    @Test
+    void keepsTheRowsWrittenBeforeADocFails() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        simulator.table("doc-1", "grid-1").expirePageTokens();
+
+        ExportRowsFromDocs task = ExportRowsFromDocs.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docs(Property.ofValue(DocSelector.builder().ids(List.of("doc-0", "doc-1")).build()))
+            .tableId(Property.ofValue("Invoices"))
+            .pageSize(Property.ofValue(50))
+            .failOnError(Property.ofValue(false))
+            .build();
+
+        ExportRowsFromDocs.Output output = task.run(runContext);
+
+        assertThat(output.getFailedDocs(), is(1L));
+        // the first page of doc-1 was streamed into the file before its page token expired
+        assertThat(output.getSize(), is(170L));
+        List<Map<?, ?>> rows = CodaApiSimulator.read(runContext, output.getUri());
+        assertThat(rows.stream().filter(row -> "doc-0".equals(row.get("_docId"))).count(), is(120L));
+        assertThat(rows.stream().filter(row -> "doc-1".equals(row.get("_docId"))).count(), is(50L));
+
+        Map<?, ?> failed = CodaApiSimulator.read(runContext, output.getDocsUri()).stream()
+            .filter(doc -> "doc-1".equals(doc.get("docId")))
+            .findFirst()
+            .orElseThrow();
+        assertThat(failed.get("status"), is("FAILED"));
+        assertThat(((Number) failed.get("records")).longValue(), is(50L));
+        assertThat(failed.get("error"), notNullValue());
+    }
+
+    @Test
+    void rejectsASelectorWithoutCriterion() {
+        assertThrows(IllegalArgumentException.class, () -> DocSelector.builder().build());
+        assertThrows(IllegalArgumentException.class, () -> DocSelector.builder().ids(List.of()).namePattern(" ").build());
+    }
+}
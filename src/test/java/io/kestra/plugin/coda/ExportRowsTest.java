@@ -0,0 +1,259 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.coda.formats.OutputFormat;
+import jakarta.inject.Inject;
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.parquet.avro.AvroParquetReader;
+import org.apache.parquet.conf.PlainParquetConfiguration;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.LocalInputFile;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class ExportRowsTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        columns.put("Amount", "number");
+        columns.put("Paid", "checkbox");
+        simulator.addTable("doc", "grid-1", "Orders", columns)
+            .generateRows(1_050, i -> Map.of("Name", "order-" + i, "Amount", i * 1.5, "Paid", i % 2 == 0));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void exportsIon() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportRows.Output output = task(OutputFormat.ION).run(runContext);
+
+        assertThat(output.getSize(), is(1_050L));
+        try (InputStream input = runContext.storage().getFile(output.getUri());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<Object> records = FileSerde.readAll(reader).collectList().block();
+
+            assertThat(records, hasSize(1_050));
+            assertThat(((Map<?, ?>) records.getFirst()).get("Name"), is("order-0"));
+        }
+    }
+
+    @Test
+    void exportsTypedAvro() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportRows.Output output = task(OutputFormat.AVRO).run(runContext);
+
+        try (InputStream input = runContext.storage().getFile(output.getUri());
+             DataFileStream<GenericRecord> stream = new DataFileStream<>(input, new GenericDatumReader<>())) {
+            int count = 0;
+            GenericRecord last = null;
+            for (GenericRecord record : stream) {
+                last = record;
+                count++;
+            }
+
+            assertThat(count, is(1_050));
+            assertThat(last.get("Name").toString(), is("order-1049"));
+            assertThat(last.get("Amount"), is(1049 * 1.5));
+            assertThat(last.get("Paid"), is(false));
+            assertThat(last.get("_id"), notNullValue());
+        }
+    }
+
+    @Test
+    void exportsTypedParquet() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        ExportRows.Output output = task(OutputFormat.PARQUET).run(runContext);
+
+        // Parquet is read from a seekable file, so the export is copied out of the internal storage first
+        Path file = runContext.workingDir().createTempFile(".parquet");
+        try (InputStream input = runContext.storage().getFile(output.getUri())) {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        try (ParquetFileReader reader = ParquetFileReader.open(new LocalInputFile(file))) {
+            MessageType schema = reader.getFooter().getFileMetaData().getSchema();
+
+            assertThat(reader.getRecordCount(), is(1_050L));
+            assertThat(schema.getType("_id").getRepetition(), is(Type.Repetition.REQUIRED));
+            assertThat(schema.getType("Name").asPrimitiveType().getPrimitiveTypeName(), is(PrimitiveType.PrimitiveTypeName.BINARY));
+            assertThat(schema.getType("Amount").asPrimitiveType().getPrimitiveTypeName(), is(PrimitiveType.PrimitiveTypeName.DOUBLE));
+            assertThat(schema.getType("Paid").asPrimitiveType().getPrimitiveTypeName(), is(PrimitiveType.PrimitiveTypeName.BOOLEAN));
+            assertThat(reader.getRowGroups().getFirst().getColumns().getFirst().getCodec(), is(CompressionCodecName.SNAPPY));
+        }
+
+        try (ParquetReader<GenericRecord> reader = AvroParquetReader.<GenericRecord>builder(new LocalInputFile(file))
+            .withConf(new PlainParquetConfiguration())
+            .build()) {
+            int count = 0;
+            GenericRecord last = null;
+            GenericRecord record;
+            while ((record = reader.read()) != null) {
+                last = record;
+                count++;
+            }
+
+            assertThat(count, is(1_050));
+            assertThat(last.get("Name").toString(), is("order-1049"));
+            assertThat(last.get("Amount"), is(1049 * 1.5));
+            assertThat(last.get("Paid"), is(false));
+            assertThat(last.get("_id"), notNullValue());
+        }
+    }
+
+    @Test
+    void keepsColumnsWhoseNamesCollide() throws Exception {
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Order ID", "text");
+        columns.put("Order_ID", "text");
+        columns.put("_id", "text");
+        simulator.addTable("doc", "grid-2", "Collisions", columns)
+            .generateRows(1, i -> Map.of("Order ID", "spaced", "Order_ID", "underscored", "_id", "user"));
+
+        RunContext runContext = runContextFactory.of(Map.of());
+        ExportRows.Output output = ExportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-2"))
+            .build()
+            .run(runContext);
+
+        try (InputStream input = runContext.storage().getFile(output.getUri());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<?, ?> record = (Map<?, ?>) FileSerde.readAll(reader).collectList().block().getFirst();
+
+            assertThat(record.get("Order_ID"), is("spaced"));
+            assertThat(record.get("Order_ID_2"), is("underscored"));
+            assertThat(record.get("_id_2"), is("user"));
+            assertThat((String) record.get("_id"), startsWith("i-"));
+        }
+    }
+
+    @Test
+    void expandsReferencesWithFewRequests() throws Exception {
+        LinkedHashMap<String, String> customerColumns = new LinkedHashMap<>();
+        customerColumns.put("Name", "text");
+        customerColumns.put("Tier", "text");
+        List<String> customers = simulator.addTable("doc", "grid-customers", "Customers", customerColumns)
+            .generateRows(50, i -> Map.of("Name", "customer-" + i, "Tier", i % 2 == 0 ? "gold" : "silver"))
+            .rowIds();
+
+        LinkedHashMap<String, String> productColumns = new LinkedHashMap<>();
+        productColumns.put("Name", "text");
+        List<String> products = simulator.addTable("doc", "grid-products", "Products", productColumns)
+            .generateRows(2_000, i -> Map.of("Name", "product-" + i))
+            .rowIds();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        columns.put("Customer", "lookup");
+        columns.put("Product", "lookup");
+        List<String> lines = simulator.addTable("doc", "grid-lines", "Order lines", columns)
+            .generateRows(1_000, i -> Map.of(
+                "Name", "line-" + i,
+                "Customer", reference("grid-customers", customers.get(i % 50), "customer-" + (i % 50)),
+                "Product", List.of(reference("grid-products", products.get(i % 3), "product-" + (i % 3)))
+            ))
+            .setParent(999, 0)
+            .rowIds();
+
+        RunContext runContext = runContextFactory.of(Map.of());
+        int before = simulator.requestCount("GET");
+
+        ExportRows.Output output = ExportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-lines"))
+            .pageSize(Property.ofValue(100))
+            .expandReferences(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1_000L));
+        // columns, 10 pages listed twice, the customers listed in one page, 3 products and the parent fetched one by
+        // one, and the three tables
+        assertThat(simulator.requestCount("GET") - before, is(29));
+
+        try (InputStream input = runContext.storage().getFile(output.getUri());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<Object> records = FileSerde.readAll(reader).collectList().block();
+            Map<?, ?> last = (Map<?, ?>) records.getLast();
+
+            // the lookup columns alone are read with the rich format, which would wrap text in code blocks
+            assertThat(last.get("Name"), is("line-999"));
+
+            Map<?, ?> customer = JacksonMapper.ofJson().readValue((String) last.get("Customer"), Map.class);
+            assertThat(customer.get("_id"), is(customers.get(999 % 50)));
+            assertThat(customer.get("Name"), is("customer-49"));
+            assertThat(customer.get("Tier"), is("silver"));
+
+            List<?> product = JacksonMapper.ofJson().readValue((String) last.get("Product"), List.class);
+            assertThat(((Map<?, ?>) product.getFirst()).get("Name"), is("product-0"));
+
+            Map<?, ?> parent = JacksonMapper.ofJson().readValue((String) last.get("_parent"), Map.class);
+            assertThat(parent.get("_id"), is(lines.getFirst()));
+            assertThat(parent.get("_name"), is("line-0"));
+            assertThat(parent.get("Name"), is("line-0"));
+            assertThat(parent.get("Customer"), is("customer-0"));
+            assertThat(((Map<?, ?>) records.getFirst()).get("_parent"), nullValue());
+        }
+    }
+
+    private static Map<String, Object> reference(String tableId, String rowId, String name) {
+        return Map.of("@type", "StructuredValue", "additionalType", "row", "tableId", tableId, "rowId", rowId, "name", name);
+    }
+
+    private ExportRows task(OutputFormat format) {
+        return ExportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .format(Property.ofValue(format))
+            .build();
+    }
+}
@@ -0,0 +1,185 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.plugin.coda.client.AdaptiveBatchingConfig;
+import io.kestra.plugin.coda.formats.InputFormat;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class ImportRowsTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Email", "email");
+        columns.put("Amount", "number");
+        simulator.addTable("doc", "grid-1", "Customers", columns)
+            .generateRows(10, i -> Map.of("Email", "user" + i + "@example.com", "Amount", 0));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void upsertsCsvInChunks() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        Path csv = runContext.workingDir().createTempFile(".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("email,amount,unknown\n");
+            for (int i = 0; i < 1_000; i++) {
+                writer.write("user" + i + "@example.com," + i + ",ignored\n");
+            }
+        }
+        URI uri = runContext.storage().putFile(csv.toFile());
+
+        ImportRows task = ImportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .from(Property.ofValue(uri.toString()))
+            .format(Property.ofValue(InputFormat.CSV))
+            .columnMapping(Property.ofValue(Map.of("email", "Email", "amount", "Amount")))
+            .keyColumns(Property.ofValue(List.of("Email")))
+            .chunkSize(Property.ofValue(250))
+            .build();
+
+        ImportRows.Output output = task.run(runContext);
+
+        assertThat(output.getSize(), is(1_000L));
+        assertThat(output.getBatches(), is(4));
+        assertThat(simulator.table("doc", "grid-1").rowCount(), is(1_000));
+        assertThat(simulator.table("doc", "grid-1").rowValues().get(5).get("Amount"), is("5"));
+    }
+
+    @Test
+    void insertsWithoutAdaptiveBatching() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        Path csv = runContext.workingDir().createTempFile(".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("email,amount\n");
+            for (int i = 0; i < 120; i++) {
+                writer.write("new" + i + "@example.com," + i + "\n");
+            }
+        }
+        URI uri = runContext.storage().putFile(csv.toFile());
+
+        // without adaptiveBatching, every batch goes through the public POST of the connection
+        ImportRows task = ImportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .from(Property.ofValue(uri.toString()))
+            .format(Property.ofValue(InputFormat.CSV))
+            .columnMapping(Property.ofValue(Map.of("email", "Email", "amount", "Amount")))
+            .chunkSize(Property.ofValue(50))
+            .build();
+
+        ImportRows.Output output = task.run(runContext);
+
+        assertThat(output.getSize(), is(120L));
+        assertThat(output.getBatches(), is(3));
+        assertThat(output.getLastRequestId(), notNullValue());
+        assertThat(simulator.requestCount("POST"), is(3));
+        assertThat(simulator.table("doc", "grid-1").rowCount(), is(130));
+        assertThat(simulator.table("doc", "grid-1").rowValues().get(15).get("Email"), is("new5@example.com"));
+    }
+
+    @Test
+    void doesNotSendThePartialBatchOfAFileThatFailsToParse() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        Path json = runContext.workingDir().createTempFile(".json");
+        try (BufferedWriter writer = Files.newBufferedWriter(json)) {
+            for (int i = 0; i < 120; i++) {
+                writer.write("{\"email\": \"new" + i + "@example.com\", \"amount\": " + i + "}\n");
+            }
+            writer.write("{\"email\": \"truncated\n");
+        }
+        URI uri = runContext.storage().putFile(json.toFile());
+
+        ImportRows task = ImportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .from(Property.ofValue(uri.toString()))
+            .format(Property.ofValue(InputFormat.JSON))
+            .columnMapping(Property.ofValue(Map.of("email", "Email", "amount", "Amount")))
+            .chunkSize(Property.ofValue(50))
+            .build();
+
+        assertThrows(IOException.class, () -> task.run(runContext));
+
+        // the two full batches were sent, the 20 rows read after them were not
+        assertThat(simulator.requestCount("POST"), is(2));
+        assertThat(simulator.table("doc", "grid-1").rowCount(), is(110));
+    }
+
+    @Test
+    void tunesBatchesAdaptively() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        Path csv = runContext.workingDir().createTempFile(".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("email,amount\n");
+            for (int i = 0; i < 3_000; i++) {
+                writer.write("user" + i + "@example.com," + i + "\n");
+            }
+        }
+        URI uri = runContext.storage().putFile(csv.toFile());
+
+        ImportRows task = ImportRows.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .from(Property.ofValue(uri.toString()))
+            .format(Property.ofValue(InputFormat.CSV))
+            .columnMapping(Property.ofValue(Map.of("email", "Email", "amount", "Amount")))
+            .chunkSize(Property.ofValue(50))
+            .adaptiveBatching(Property.ofValue(AdaptiveBatchingConfig.builder().increment(50).build()))
+            .build();
+
+        ImportRows.Output output = task.run(runContext);
+
+        assertThat(output.getSize(), is(3_000L));
+        assertThat(output.getBatches(), lessThan(20));
+        assertThat(output.getMaxBatchSize(), greaterThanOrEqualTo(output.getBatchSize()));
+        assertThat(output.getConcurrency(), greaterThanOrEqualTo(1));
+        assertThat(simulator.table("doc", "grid-1").rowCount(), is(3_010));
+    }
+}
@@ -0,0 +1,137 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class LookupRowTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Code", "text");
+        columns.put("Region", "text");
+        columns.put("Rank", "number");
+        simulator.addTable("doc", "grid-1", "Countries", columns)
+            .generateRows(1_200, i -> Map.of("Code", "C" + i, "Region", "region-" + i % 7, "Rank", (double) i));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void servesLookupsFromTheMirror() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+
+        LookupRow.Output first = task("Code", "C10", Duration.ofMinutes(5)).run(runContext);
+        int requestsAfterLoad = simulator.requestCount();
+
+        assertThat(first.getFound(), is(true));
+        assertThat(first.getRow().get("Region"), is("region-3"));
+        assertThat(first.getRefreshedAt(), notNullValue());
+
+        for (int i = 0; i < 100; i++) {
+            LookupRow.Output output = task("Code", "C" + i, Duration.ofMinutes(5)).run(runContext);
+            assertThat(output.getRow().get("Rank"), is((double) i));
+        }
+
+        assertThat(task("Code", "unknown", Duration.ofMinutes(5)).run(runContext).getFound(), is(false));
+        assertThat(simulator.requestCount(), is(requestsAfterLoad));
+    }
+
+    @Test
+    void matchesNumbersByValue() throws Exception {
+        LookupRow.Output output = task("Rank", "42", Duration.ofMinutes(5)).run(runContextFactory.of(Map.of()));
+
+        assertThat(output.getFound(), is(true));
+        assertThat(output.getRow().get("Code"), is("C42"));
+    }
+
+    @Test
+    void refreshesOnlyChangedRowsWhenStale() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        task("Code", "C5", Duration.ofMinutes(5)).run(runContext);
+
+        simulator.table("doc", "grid-1").updateRow(5, Map.of("Region", "moved"));
+        int requestsBeforeRefresh = simulator.requestCount();
+        Thread.sleep(10);
+
+        LookupRow.Output output = task("Code", "C5", Duration.ZERO).run(runContext);
+
+        assertThat(output.getRow().get("Region"), is("moved"));
+        // only the changed row is listed, in a single page
+        assertThat(simulator.requestCount() - requestsBeforeRefresh, is(1));
+    }
+
+    @Test
+    void keepsRowsSharingAKeyWhenOneOfThemLeavesIt() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        assertThat(task("Region", "region-3", Duration.ofMinutes(5)).run(runContext).getRow().get("Code"), is("C3"));
+
+        // rows 3 and 10 share region-3 with many others: one moves to another key, the other has its key cleared
+        simulator.table("doc", "grid-1")
+            .updateRow(3, Map.of("Region", "moved"))
+            .updateRow(10, Map.of("Region", ""));
+        Thread.sleep(10);
+
+        LookupRow.Output output = task("Region", "region-3", Duration.ZERO).run(runContext);
+
+        assertThat(output.getFound(), is(true));
+        assertThat(output.getRow().get("Code"), is("C17"));
+        assertThat(task("Region", "moved", Duration.ZERO).run(runContext).getRow().get("Code"), is("C3"));
+    }
+
+    @Test
+    void failsOnTablesLargerThanMaxRows() throws Exception {
+        LookupRow task = LookupRow.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .keyColumn(Property.ofValue("Code"))
+            .key(Property.ofValue("C1"))
+            .maxRows(Property.ofValue(1_000))
+            .build();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> task.run(runContextFactory.of(Map.of())));
+        assertThat(e.getMessage(), containsString("more than 1000 rows"));
+
+        // the mirror that failed to load is dropped, so raising maxRows applies to the next run
+        LookupRow.Output output = task("Code", "C1", Duration.ofMinutes(5)).run(runContextFactory.of(Map.of()));
+        assertThat(output.getRow(), notNullValue());
+    }
+
+    private LookupRow task(String keyColumn, String key, Duration maxStaleness) {
+        return LookupRow.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .tableId(Property.ofValue("grid-1"))
+            .keyColumn(Property.ofValue(keyColumn))
+            .key(Property.ofValue(key))
+            .maxStaleness(Property.ofValue(maxStaleness))
+            .build();
+    }
+}
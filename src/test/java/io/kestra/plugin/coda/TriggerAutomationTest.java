@@ -0,0 +1,100 @@
+package io.kestra.plugin.coda;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.plugin.coda.formats.InputFormat;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class TriggerAutomationTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator().latency(Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void packsRecordsIntoBatchedPayloads() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        List<Map<String, Object>> payloads = IntStream.range(0, 95)
+            .<Map<String, Object>>mapToObj(i -> Map.of("id", i))
+            .toList();
+
+        TriggerAutomation task = TriggerAutomation.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .ruleId(Property.ofValue("grid-auto-1"))
+            .payloads(Property.ofValue(payloads))
+            .batchSize(Property.ofValue(10))
+            .concurrency(Property.ofValue(4))
+            .build();
+
+        TriggerAutomation.Output output = task.run(runContext);
+
+        assertThat(output.getRequests(), is(10L));
+        assertThat(output.getSuccesses(), is(10L));
+        assertThat(simulator.automationPayloads(), hasSize(10));
+        assertThat(((Map<?, ?>) simulator.automationPayloads().getFirst()).get("items"), instanceOf(List.class));
+
+        try (InputStream input = runContext.storage().getFile(output.getUri());
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<Object> results = FileSerde.readAll(reader).collectList().block();
+
+            assertThat(results, hasSize(10));
+            assertThat(results.stream().mapToInt(r -> ((Number) ((Map<?, ?>) r).get("recordCount")).intValue()).sum(), is(95));
+        }
+    }
+
+    @Test
+    void readsCsvWithFieldSeparator() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of());
+        Path csv = runContext.workingDir().createTempFile(".csv");
+        Files.writeString(csv, "name;status\nJohn Doe;Active\nJane Doe;Inactive\n");
+        URI uri = runContext.storage().putFile(csv.toFile());
+
+        TriggerAutomation.Output output = TriggerAutomation.builder()
+            .apiToken(Property.ofValue(CodaApiSimulator.VALID_TOKEN))
+            .baseUrl(Property.ofValue(simulator.baseUrl()))
+            .docId(Property.ofValue("doc"))
+            .ruleId(Property.ofValue("grid-auto-1"))
+            .from(Property.ofValue(uri.toString()))
+            .format(Property.ofValue(InputFormat.CSV))
+            .fieldSeparator(Property.ofValue(';'))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSuccesses(), is(2L));
+        assertThat(simulator.automationPayloads(), hasItem(Map.of("name", "John Doe", "status", "Active")));
+    }
+}
@@ -0,0 +1,79 @@
+package io.kestra.plugin.coda.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class AdaptiveBatchControllerTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void growsAdditivelyWhileHealthy() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(config(), 100);
+
+        for (int i = 0; i < 4; i++) {
+            controller.succeeded(controller.getBatchSize(), 100L * controller.getBatchSize(), FAST, false);
+        }
+
+        assertThat(controller.getBatchSize(), is(200));
+        assertThat(controller.getConcurrency(), is(3));
+        assertThat(controller.getBackoffs(), is(0L));
+    }
+
+    @Test
+    void backsOffMultiplicativelyUnderPressure() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(config(), 100);
+        for (int i = 0; i < 4; i++) {
+            controller.succeeded(controller.getBatchSize(), 100L * controller.getBatchSize(), FAST, false);
+        }
+
+        controller.succeeded(200, 20_000, SLOW, false);
+        assertThat(controller.getBatchSize(), is(100));
+        assertThat(controller.getConcurrency(), is(3));
+
+        controller.succeeded(100, 10_000, FAST, true);
+        assertThat(controller.getBatchSize(), is(50));
+        assertThat(controller.getConcurrency(), is(1));
+
+        for (int i = 0; i < 10; i++) {
+            controller.failed();
+        }
+        assertThat(controller.getBatchSize(), is(10));
+        assertThat(controller.getBackoffs(), is(12L));
+    }
+
+    @Test
+    void capsBatchSizeByPayload() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(config(), 500);
+
+        controller.succeeded(500, 500L * 10_000, FAST, false);
+
+        assertThat(controller.getBatchSize(), is(150));
+    }
+
+    @Test
+    void shrinksBelowRejectedBatches() {
+        AdaptiveBatchController controller = new AdaptiveBatchController(config(), 500);
+
+        controller.tooLarge(300);
+
+        assertThat(controller.getBatchSize(), is(150));
+    }
+
+    private static AdaptiveBatchingConfig config() {
+        return AdaptiveBatchingConfig.builder()
+            .minBatchSize(10)
+            .maxBatchSize(1000)
+            .maxPayloadBytes(1_500_000)
+            .targetLatency(Duration.ofSeconds(2))
+            .increment(25)
+            .maxConcurrency(4)
+            .backoffFactor(0.5)
+            .build();
+    }
+}
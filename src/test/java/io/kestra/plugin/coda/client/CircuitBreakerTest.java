@@ -0,0 +1,173 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.exceptions.CodaCircuitOpenException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(
+        "test",
+        CircuitBreakerConfig.builder()
+            .slidingWindowSize(10)
+            .minimumCalls(4)
+            .failureRateThreshold(0.5)
+            .slowCallDuration(Duration.ofSeconds(1))
+            .slowCallRateThreshold(0.75)
+            .openDuration(Duration.ofSeconds(30))
+            .halfOpenCalls(2)
+            .build(),
+        clock::get
+    );
+
+    @Test
+    void opensOnFailureRateAndProbesAfterOpenDuration() throws Exception {
+        call(false);
+        call(true);
+        call(false);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+
+        call(true);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        assertThrows(CodaCircuitOpenException.class, breaker::acquirePermission);
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        long probe = breaker.acquirePermission();
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        // the calls made while the probe is in flight are rejected
+        assertThrows(CodaCircuitOpenException.class, breaker::acquirePermission);
+
+        breaker.onSuccess(FAST, probe);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        probe = breaker.acquirePermission();
+        assertThrows(CodaCircuitOpenException.class, breaker::acquirePermission);
+
+        breaker.onSuccess(FAST, probe);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void ignoresCallsStartedBeforeTheCircuitOpened() throws Exception {
+        long stale = breaker.acquirePermission();
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        long probe = breaker.acquirePermission();
+        breaker.onSuccess(FAST, stale);
+        // the stale call neither completes the probe nor counts towards closing the circuit
+        assertThat(breaker.getState(), is(CircuitBreaker.State.HALF_OPEN));
+        assertThrows(CodaCircuitOpenException.class, breaker::acquirePermission);
+
+        breaker.onSuccess(FAST, probe);
+        breaker.onSuccess(FAST, breaker.acquirePermission());
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void letsASingleProbeThroughConcurrentCallers() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            call(true);
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger permitted = new AtomicInteger();
+        AtomicLong probe = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        probe.set(breaker.acquirePermission());
+                        permitted.incrementAndGet();
+                    } catch (CodaCircuitOpenException e) {
+                        // rejected while the probe is in flight
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(permitted.get(), is(1));
+        breaker.onFailure(FAST, probe.get());
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    void opensOnSlowCallsAndReopensOnFailedProbe() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(Duration.ofSeconds(2).toNanos(), breaker.acquirePermission());
+        }
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+        call(true);
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    void rejectsInvalidThresholds() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(
+            "test", CircuitBreakerConfig.builder().halfOpenCalls(0).build()
+        ));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(
+            "test", CircuitBreakerConfig.builder().failureRateThreshold(0.0).build()
+        ));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(
+            "test", CircuitBreakerConfig.builder().slowCallRateThreshold(1.5).build()
+        ));
+    }
+
+    @Test
+    void dropsIdleDocumentGuards() throws Exception {
+        CodaConnectionOptions options = CodaConnectionOptions.builder().build();
+        DocumentGuard idle = DocumentGuard.of("sweep-idle", "idle", options);
+        DocumentGuard busy = DocumentGuard.of("sweep-busy", "busy", options);
+        long permit = busy.acquire();
+
+        DocumentGuard.sweep(System.nanoTime() + Duration.ofMinutes(DocumentGuard.IDLE_MINUTES + 1).toNanos());
+
+        assertThat(DocumentGuard.of("sweep-idle", "idle", options), not(sameInstance(idle)));
+        assertThat(DocumentGuard.of("sweep-busy", "busy", options), sameInstance(busy));
+        busy.release(permit, false, FAST);
+    }
+
+    private void call(boolean failure) throws CodaCircuitOpenException {
+        long permit = breaker.acquirePermission();
+        if (failure) {
+            breaker.onFailure(FAST, permit);
+        } else {
+            breaker.onSuccess(FAST, permit);
+        }
+    }
+}
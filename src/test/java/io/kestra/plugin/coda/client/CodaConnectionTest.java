@@ -0,0 +1,299 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.CodaApiSimulator;
+import io.kestra.plugin.coda.exceptions.CodaAuthenticationException;
+import io.kestra.plugin.coda.exceptions.CodaCircuitOpenException;
+import io.kestra.plugin.coda.exceptions.CodaDeadlineExceededException;
+import io.kestra.plugin.coda.exceptions.CodaException;
+import io.kestra.plugin.coda.exceptions.CodaResourceNotFoundException;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.CodaRowCell;
+import io.kestra.plugin.coda.models.CodaTable;
+import io.kestra.plugin.coda.models.InsertRowsRequest;
+import io.kestra.plugin.coda.models.InsertRowsResponse;
+import io.kestra.plugin.coda.models.MutationStatus;
+import io.kestra.plugin.coda.models.PagedResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CodaConnectionTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CodaConnectionTest.class);
+    private static final TypeReference<PagedResponse<CodaRow>> ROWS_PAGE = new TypeReference<>() {};
+
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        columns.put("Amount", "number");
+        simulator.addTable("doc", "grid-1", "Orders", columns)
+            .generateRows(1_234, i -> Map.of("Name", "order-" + i, "Amount", i));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void pagesThroughAllRows() throws Exception {
+        CodaConnection connection = connection(CodaApiSimulator.VALID_TOKEN);
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection,
+            CodaEndpoints.withQuery(CodaEndpoints.rows("doc", "grid-1"), Map.of("limit", 500)),
+            ROWS_PAGE
+        );
+
+        int count = 0;
+        while (pager.hasNext()) {
+            count += pager.next().size();
+        }
+
+        assertThat(count, is(1_234));
+        assertThat(pager.getPageCount(), is(3));
+    }
+
+    @Test
+    void resolvesTableByName() throws Exception {
+        CodaTable table = connection(CodaApiSimulator.VALID_TOKEN).get(CodaEndpoints.table("doc", "Orders"), CodaTable.class);
+
+        assertThat(table.getId(), is("grid-1"));
+    }
+
+    @Test
+    void retriesRateLimitedRequests() throws Exception {
+        simulator.injectFaults(CodaApiSimulator.Fault.RATE_LIMITED, CodaApiSimulator.Fault.RATE_LIMITED);
+
+        CodaTable table = connection(CodaApiSimulator.VALID_TOKEN).get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+
+        assertThat(table.getName(), is("Orders"));
+        assertThat(simulator.requestCount(), is(3));
+    }
+
+    @Test
+    void spreadsCallsOverTokenPool() throws Exception {
+        simulator.addToken("second-token").rateLimit(10, Duration.ofSeconds(5), 5);
+        CodaConnection connection = new CodaConnection(
+            List.of(CodaApiSimulator.VALID_TOKEN, "second-token"),
+            simulator.baseUrl(),
+            CodaConnectionOptions.defaults(),
+            LOGGER
+        );
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+        }
+
+        assertThat(simulator.requestCount(), is(20));
+        assertThat(Duration.ofNanos(System.nanoTime() - start), lessThan(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void restsRateLimitedTokensUntilTheirRetryAfter() throws Exception {
+        simulator.addToken("second-token").rateLimit(3, Duration.ofSeconds(30), 30);
+        CodaConnection connection = new CodaConnection(
+            List.of(CodaApiSimulator.VALID_TOKEN, "second-token"),
+            simulator.baseUrl(),
+            CodaConnectionOptions.builder().deadline(Instant.now().plusSeconds(10)).build(),
+            LOGGER
+        );
+
+        for (int i = 0; i < 6; i++) {
+            connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+        }
+
+        // each token is rate limited once, then rests for longer than the deadline
+        long start = System.nanoTime();
+        assertThrows(CodaDeadlineExceededException.class, () -> connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class));
+        assertThat(Duration.ofNanos(System.nanoTime() - start), lessThan(Duration.ofSeconds(2)));
+        assertThat(simulator.requestCount(), is(8));
+    }
+
+    @Test
+    void dropsRejectedTokensFromPool() throws Exception {
+        simulator.addToken("revoked-token");
+        CodaConnection connection = new CodaConnection(
+            List.of("revoked-token", CodaApiSimulator.VALID_TOKEN),
+            simulator.baseUrl(),
+            CodaConnectionOptions.defaults(),
+            LOGGER
+        );
+        simulator.revokeToken("revoked-token");
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class).getName(), is("Orders"));
+        }
+        assertThat(simulator.requestCount(), lessThanOrEqualTo(11));
+    }
+
+    @Test
+    void upsertsOnKeyColumns() throws Exception {
+        CodaConnection connection = connection(CodaApiSimulator.VALID_TOKEN);
+
+        try (RowBatchWriter writer = new RowBatchWriter(connection, "doc", "grid-1", List.of("c-0"), 2)) {
+            writer.write(row("order-1", 100));
+            writer.write(row("new-order", 5));
+            writer.write(row("order-2", 200));
+        }
+
+        assertThat(simulator.table("doc", "grid-1").rowCount(), is(1_235));
+        assertThat(simulator.table("doc", "grid-1").rowValues().get(1).get("Amount"), is(100));
+
+        InsertRowsResponse response = connection.post(
+            CodaEndpoints.rows("doc", "grid-1"),
+            InsertRowsRequest.builder().row(row("another", 1)).build(),
+            InsertRowsResponse.class
+        );
+        MutationStatus status = connection.get(CodaEndpoints.mutationStatus(response.getRequestId()), MutationStatus.class);
+
+        assertThat(response.getAddedRowIds(), hasSize(1));
+        assertThat(status.getCompleted(), is(true));
+    }
+
+    @Test
+    void mapsErrorStatuses() {
+        assertThrows(
+            CodaAuthenticationException.class,
+            () -> connection("invalid").get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class)
+        );
+        assertThrows(
+            CodaResourceNotFoundException.class,
+            () -> connection(CodaApiSimulator.VALID_TOKEN).get(CodaEndpoints.table("doc", "missing"), CodaTable.class)
+        );
+
+        simulator.injectFaults(CodaApiSimulator.Fault.SERVER_ERROR);
+        CodaException exception = assertThrows(
+            CodaException.class,
+            () -> connection(CodaApiSimulator.VALID_TOKEN).get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class)
+        );
+        assertThat(exception.getStatusCode(), is(500));
+    }
+
+    @Test
+    void failsFastWhenCircuitIsOpen() {
+        CodaConnection connection = connection(CodaApiSimulator.VALID_TOKEN);
+        simulator.faultRate(1.0, CodaApiSimulator.Fault.SERVICE_UNAVAILABLE);
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(CodaException.class, () -> connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class));
+        }
+        int requests = simulator.requestCount();
+
+        assertThrows(CodaCircuitOpenException.class, () -> connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class));
+        assertThat(simulator.requestCount(), is(requests));
+    }
+
+    @Test
+    void hedgesSlowReads() throws Exception {
+        CodaConnection connection = new CodaConnection(
+            CodaApiSimulator.VALID_TOKEN,
+            simulator.baseUrl(),
+            CodaConnectionOptions.builder()
+                .hedging(HedgingConfig.builder().percentile(90.0).minDelay(Duration.ofMillis(50)).minSamples(20).build())
+                .build(),
+            LOGGER
+        );
+        for (int i = 0; i < 20; i++) {
+            connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+        }
+
+        simulator.stallNextRequests(1, Duration.ofSeconds(5));
+        int requests = simulator.requestCount();
+        long start = System.nanoTime();
+        CodaTable table = connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+
+        assertThat(table.getName(), is("Orders"));
+        assertThat(Duration.ofNanos(System.nanoTime() - start), lessThan(Duration.ofSeconds(2)));
+        assertThat(simulator.requestCount(), is(requests + 2));
+    }
+
+    @Test
+    void doesNotHedgeBeyondTheBulkhead() throws Exception {
+        CodaConnection connection = new CodaConnection(
+            CodaApiSimulator.VALID_TOKEN,
+            simulator.baseUrl(),
+            CodaConnectionOptions.builder()
+                .maxConcurrentRequestsPerDoc(1)
+                .hedging(HedgingConfig.builder().percentile(90.0).minDelay(Duration.ofMillis(50)).minSamples(20).build())
+                .build(),
+            LOGGER
+        );
+        for (int i = 0; i < 20; i++) {
+            connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+        }
+
+        // the only slot of the document is held by the stalled read, so it is waited for rather than hedged
+        simulator.stallNextRequests(1, Duration.ofMillis(500));
+        int requests = simulator.requestCount();
+        CodaTable table = connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class);
+
+        assertThat(table.getName(), is("Orders"));
+        assertThat(simulator.requestCount(), is(requests + 1));
+    }
+
+    @Test
+    void propagatesDeadline() {
+        CodaConnection connection = new CodaConnection(
+            CodaApiSimulator.VALID_TOKEN,
+            simulator.baseUrl(),
+            CodaConnectionOptions.builder()
+                .deadline(Instant.now().plusMillis(300))
+                .build(),
+            LOGGER
+        );
+        simulator.latency(Duration.ofSeconds(3));
+
+        long start = System.nanoTime();
+        assertThrows(CodaDeadlineExceededException.class, () -> connection.get(CodaEndpoints.table("doc", "grid-1"), CodaTable.class));
+        assertThat(Duration.ofNanos(System.nanoTime() - start), lessThan(Duration.ofSeconds(2)));
+    }
+
+    @Test
+    void readsLargeTableUnderRateLimitAndLatency() throws Exception {
+        simulator.table("doc", "grid-1").generateRows(20_000, i -> Map.of("Name", "bulk-" + i, "Amount", i));
+        simulator.latency(Duration.ofMillis(5)).rateLimit(50, Duration.ofSeconds(1), 1);
+
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection(CodaApiSimulator.VALID_TOKEN),
+            CodaEndpoints.withQuery(CodaEndpoints.rows("doc", "grid-1"), Map.of("limit", 100)),
+            ROWS_PAGE
+        );
+
+        long count = 0;
+        while (pager.hasNext()) {
+            count += pager.next().size();
+        }
+
+        assertThat(count, is(21_234L));
+        assertThat(simulator.requestCount(), greaterThanOrEqualTo(pager.getPageCount()));
+    }
+
+    private CodaConnection connection(String token) {
+        return new CodaConnection(token, simulator.baseUrl(), LOGGER);
+    }
+
+    private static InsertRowsRequest.RowData row(String name, int amount) {
+        return InsertRowsRequest.RowData.builder()
+            .cell(CodaRowCell.builder().column("c-0").value(name).build())
+            .cell(CodaRowCell.builder().column("c-1").value(amount).build())
+            .build();
+    }
+}
@@ -0,0 +1,58 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.kestra.plugin.coda.CodaApiSimulator;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark of the first page read by a task, with a mapper created per connection as before and with the
+ * shared, pre-warmed readers. It only logs its timings, which depend on the machine, and is excluded from the default
+ * test run: run it with {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class CodaJsonBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(CodaJsonBenchmark.class);
+    private static final JavaType ROWS_PAGE = CodaJson.type(new TypeReference<PagedResponse<CodaRow>>() {});
+    private static final int ROUNDS = 50;
+
+    @Test
+    void firstReadWithPerConnectionAndSharedMappers() throws Exception {
+        byte[] page = CodaApiSimulator.rowsPage(500);
+        CodaJson.warmUp();
+
+        long[] cold = new long[ROUNDS];
+        long[] warm = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            // a new mapper introspects the models again, as each connection did with its own mapper
+            ObjectMapper perConnection = CodaJson.createMapper(false);
+            long start = System.nanoTime();
+            perConnection.readerFor(ROWS_PAGE).readValue(page);
+            cold[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            CodaJson.reader(ROWS_PAGE).readValue(page);
+            warm[i] = System.nanoTime() - start;
+        }
+
+        logger.info(
+            "First read of a 500-row page over {} rounds: per-connection mapper median {}us, shared warmed reader median {}us",
+            ROUNDS, median(cold), median(warm)
+        );
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return TimeUnit.NANOSECONDS.toMicros(sorted[sorted.length / 2]);
+    }
+}
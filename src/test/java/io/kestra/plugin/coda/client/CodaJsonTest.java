@@ -0,0 +1,45 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import io.kestra.plugin.coda.CodaApiSimulator;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CodaJsonTest {
+    private static final JavaType ROWS_PAGE = CodaJson.type(new TypeReference<PagedResponse<CodaRow>>() {});
+
+    /**
+     * The first page read by a task must not pay for the introspection of the models: once the background warm-up
+     * completed, every model reader is resolved and the connections are handed the cached instance.
+     */
+    @Test
+    void backgroundWarmUpCachesTheModelReaders() throws Exception {
+        CodaJson.warmUpInBackground();
+
+        assertThat(CodaJson.awaitWarmUp(Duration.ofSeconds(30)), is(true));
+        assertThat(CodaJson.isWarm(), is(true));
+        assertThat(CodaJson.reader(ROWS_PAGE), sameInstance(CodaJson.reader(ROWS_PAGE)));
+
+        PagedResponse<CodaRow> page = CodaJson.reader(ROWS_PAGE).readValue(CodaApiSimulator.rowsPage(500));
+        assertThat(page.getItems(), hasSize(500));
+    }
+
+    @Test
+    void blackbirdReadsTheSameModels() throws Exception {
+        byte[] page = CodaApiSimulator.rowsPage(3);
+
+        PagedResponse<CodaRow> reflective = CodaJson.createMapper(false).readerFor(ROWS_PAGE).readValue(page);
+        PagedResponse<CodaRow> generated = CodaJson.createMapper(true).readerFor(ROWS_PAGE).readValue(page);
+
+        assertThat(generated.getItems().get(2).getId(), is(reflective.getItems().get(2).getId()));
+        assertThat(generated.getItems().get(2).getValues(), is(reflective.getItems().get(2).getValues()));
+        assertThat(generated.getNextPageToken(), is("next"));
+    }
+}
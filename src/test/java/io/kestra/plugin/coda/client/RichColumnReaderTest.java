@@ -0,0 +1,87 @@
+package io.kestra.plugin.coda.client;
+
+import io.kestra.plugin.coda.CodaApiSimulator;
+import io.kestra.plugin.coda.models.CodaRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RichColumnReaderTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RichColumnReaderTest.class);
+
+    private CodaApiSimulator simulator;
+    private List<String> rowIds;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        simulator = new CodaApiSimulator();
+
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        rowIds = simulator.addTable("doc", "grid-1", "Orders", columns)
+            .generateRows(30, i -> Map.of("Name", "order-" + i))
+            .rowIds();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        simulator.close();
+    }
+
+    @Test
+    void readsInStepAndForgetsUnclaimedRows() throws Exception {
+        RichColumnReader reader = new RichColumnReader(
+            new CodaConnection(CodaApiSimulator.VALID_TOKEN, simulator.baseUrl(), LOGGER),
+            "doc",
+            "grid-1",
+            Map.of("limit", 10, "useColumnNames", true),
+            Set.of("Name")
+        );
+
+        // order-9 moved out of the first page of the first listing, to the third one
+        List<CodaRow> first = rows(0, 9);
+        first.add(row("i-new", "new"));
+        List<CodaRow> merged = reader.read(first);
+
+        assertThat(reader.getPageCount(), is(1));
+        assertThat(merged.get(3).getValues().get("Name"), is("```order-3```"));
+        assertThat(merged.get(9).getValues().get("Name"), is("new"));
+
+        reader.read(rows(10, 20));
+        assertThat(reader.getPageCount(), is(2));
+
+        List<CodaRow> third = rows(9, 10);
+        third.addAll(rows(20, 29));
+        merged = reader.read(third);
+
+        assertThat(reader.getPageCount(), is(3));
+        // the value of order-9 read two pages earlier was dropped, so the row keeps the value of the first listing
+        assertThat(merged.getFirst().getValues().get("Name"), is("order-9"));
+        assertThat(merged.getLast().getValues().get("Name"), is("```order-28```"));
+    }
+
+    private List<CodaRow> rows(int from, int to) {
+        List<CodaRow> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            rows.add(row(rowIds.get(i), "order-" + i));
+        }
+        return rows;
+    }
+
+    private static CodaRow row(String id, String name) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("Name", name);
+        return CodaRow.builder().id(id).name(name).values(values).build();
+    }
+}
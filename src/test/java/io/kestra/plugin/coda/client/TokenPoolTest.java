@@ -0,0 +1,37 @@
+package io.kestra.plugin.coda.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class TokenPoolTest {
+    @Test
+    void fingerprintsAreTruncatedDigests() {
+        TokenPool single = TokenPool.of("http://fingerprints", List.of("secret-token"));
+        TokenPool pool = TokenPool.of("http://fingerprints", List.of("secret-token", "other-token"));
+
+        assertThat(single.getFingerprint(), matchesPattern("[0-9a-f]{16}"));
+        assertThat(single.getFingerprint(), not(containsString("secret")));
+        assertThat(pool.getFingerprint(), matchesPattern("[0-9a-f]{16}"));
+        assertThat(pool.getFingerprint(), is(TokenPool.of("http://fingerprints", List.of("other-token", "secret-token")).getFingerprint()));
+        assertThat(pool.getFingerprint(), not(single.getFingerprint()));
+    }
+
+    @Test
+    void dropsIdleTokenStatesButKeepsTheOnesStillSittingOut() {
+        TokenPool idle = TokenPool.of("http://sweep", List.of("idle-token"));
+        TokenPool resting = TokenPool.of("http://sweep", List.of("resting-token"));
+        idle.acquire().rateLimited(0);
+        resting.acquire().rateLimited(3600);
+
+        TokenPool.sweep(System.nanoTime() + Duration.ofMinutes(TokenPool.IDLE_MINUTES + 1).toNanos());
+
+        // a dropped state starts over with a full budget, a kept one still makes the token sit out
+        assertThat(TokenPool.of("http://sweep", List.of("idle-token")).acquire().budget(System.nanoTime()), greaterThan(90.0));
+        assertThat(TokenPool.of("http://sweep", List.of("resting-token")).acquire().waitNanos(System.nanoTime()), greaterThan(0L));
+    }
+}
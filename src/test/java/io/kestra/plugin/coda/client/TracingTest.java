@@ -0,0 +1,127 @@
+package io.kestra.plugin.coda.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.kestra.plugin.coda.CodaApiSimulator;
+import io.kestra.plugin.coda.models.CodaRow;
+import io.kestra.plugin.coda.models.PagedResponse;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class TracingTest {
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+        .build();
+    private CodaApiSimulator simulator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        OpenTelemetrySpans.tracerProvider(tracerProvider);
+
+        simulator = new CodaApiSimulator();
+        LinkedHashMap<String, String> columns = new LinkedHashMap<>();
+        columns.put("Name", "text");
+        simulator.addTable("doc", "grid-1", "Orders", columns)
+            .generateRows(120, i -> Map.of("Name", "order-" + i));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        OpenTelemetrySpans.tracerProvider(null);
+        simulator.close();
+    }
+
+    @Test
+    void recordsOneSpanPerPage() throws Exception {
+        CodaPager<CodaRow> pager = new CodaPager<>(
+            connection(PayloadCaptureConfig.builder().sampleRate(0.0).build()),
+            CodaEndpoints.withQuery(CodaEndpoints.rows("doc", "grid-1"), Map.of("limit", 50)),
+            new TypeReference<PagedResponse<CodaRow>>() {}
+        );
+        while (pager.hasNext()) {
+            pager.next();
+        }
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans, hasSize(3));
+
+        SpanData last = spans.get(2);
+        assertThat(last.getName(), is("GET /docs/{docId}/tables/{tableId}/rows"));
+        assertThat(last.getKind(), is(SpanKind.CLIENT));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.DOC_ID), is("doc"));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.TABLE_ID), is("grid-1"));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.PAGE), is(3L));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.HTTP_STATUS), is(200L));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.RESPONSE_SIZE), greaterThan(0L));
+        assertThat(last.getAttributes().get(OpenTelemetrySpans.RESPONSE_PAYLOAD), nullValue());
+    }
+
+    @Test
+    void tracesRateLimitWaitsAndCapsPayloads() throws Exception {
+        simulator.injectFaults(CodaApiSimulator.Fault.RATE_LIMITED);
+
+        connection(PayloadCaptureConfig.builder().sampleRate(1.0).maxBytes(64).build())
+            .get(CodaEndpoints.withQuery(CodaEndpoints.rows("doc", "grid-1"), Map.of("limit", 100)), new TypeReference<PagedResponse<CodaRow>>() {});
+
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans, hasSize(2));
+
+        assertThat(spans.get(0).getStatus().getStatusCode(), is(StatusCode.ERROR));
+        assertThat(spans.get(0).getAttributes().get(OpenTelemetrySpans.HTTP_STATUS), is(429L));
+
+        SpanData retry = spans.get(1);
+        assertThat(retry.getAttributes().get(OpenTelemetrySpans.RETRY_ATTEMPT), is(1L));
+        assertThat(retry.getAttributes().get(OpenTelemetrySpans.RATE_LIMIT_WAIT), greaterThanOrEqualTo(0L));
+        assertThat(retry.getAttributes().get(OpenTelemetrySpans.RESPONSE_PAYLOAD), endsWith("bytes)"));
+        assertThat(retry.getAttributes().get(OpenTelemetrySpans.RESPONSE_PAYLOAD).length(), lessThan(100));
+    }
+
+    @Test
+    void callsFromPoolThreadsJoinTheSubmittingSpan() throws Exception {
+        CodaConnection connection = connection(PayloadCaptureConfig.builder().sampleRate(0.0).build());
+        ExecutorService executor = Tracing.propagateContext(Executors.newFixedThreadPool(2));
+        Span task = tracerProvider.get("test").spanBuilder("task").startSpan();
+
+        try (Scope ignored = task.makeCurrent()) {
+            executor.submit(() -> connection.get(CodaEndpoints.table("doc", "grid-1"), Map.class)).get();
+        } finally {
+            task.end();
+            executor.shutdownNow();
+        }
+
+        SpanData call = exporter.getFinishedSpanItems().stream()
+            .filter(span -> span.getKind() == SpanKind.CLIENT)
+            .findFirst()
+            .orElseThrow();
+        assertThat(call.getTraceId(), is(task.getSpanContext().getTraceId()));
+        assertThat(call.getParentSpanId(), is(task.getSpanContext().getSpanId()));
+    }
+
+    private CodaConnection connection(PayloadCaptureConfig capture) {
+        return new CodaConnection(
+            CodaApiSimulator.VALID_TOKEN,
+            simulator.baseUrl(),
+            CodaConnectionOptions.builder().payloadCapture(capture).build(),
+            LoggerFactory.getLogger(TracingTest.class)
+        );
+    }
+}
@@ -0,0 +1,85 @@
+package io.kestra.plugin.coda.formats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpillingHashJoinTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void splitsAPartitionOfSkewedKeys() throws Exception {
+        // every key falls in the same first-level partition, which is far over the budget on its own
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; keys.size() < 200; i++) {
+            String key = "key-" + i;
+            if (Math.floorMod(key.hashCode(), 64) == 0) {
+                keys.add(key);
+            }
+        }
+
+        Map<String, Object> matches = new HashMap<>();
+        try (SpillingHashJoin join = new SpillingHashJoin(directory, 2_048)) {
+            for (String key : keys) {
+                join.build(key, Map.of("value", "value-" + key));
+            }
+            assertThat(join.isSpilled(), is(true));
+
+            SpillingHashJoin.Emitter emitter = (record, match) ->
+                matches.put((String) record.get("key"), match != null ? match.get("value") : null);
+            for (String key : keys) {
+                join.probe(key, Map.of("key", key), emitter);
+            }
+            join.probe("unknown", Map.of("key", "unknown"), emitter);
+            join.finish(emitter);
+        }
+
+        assertThat(matches.size(), is(201));
+        assertThat(matches.get("unknown"), nullValue());
+        for (String key : keys) {
+            assertThat(matches.get(key), is("value-" + key));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.toList(), empty());
+        }
+    }
+
+    @Test
+    void failsOnKeysThatCannotBeSplit() throws Exception {
+        // "Aa" and "BB" have the same hash code, so do all the keys made of them
+        List<String> keys = List.of("");
+        for (int i = 0; i < 8; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String key : keys) {
+                longer.add(key + "Aa");
+                longer.add(key + "BB");
+            }
+            keys = longer;
+        }
+
+        try (SpillingHashJoin join = new SpillingHashJoin(directory, 1_024)) {
+            for (String key : keys) {
+                join.build(key, Map.of("value", key));
+            }
+
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> join.finish(SpillingHashJoinTest::ignore));
+            assertThat(e.getMessage(), containsString("raise the memory budget"));
+        }
+    }
+
+    private static void ignore(Map<String, Object> record, Map<String, Object> match) throws IOException {
+    }
+}